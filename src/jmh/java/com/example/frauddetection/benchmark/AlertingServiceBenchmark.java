@@ -0,0 +1,64 @@
+package com.example.frauddetection.benchmark;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.service.AlertingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of raising an alert on the consumer thread, per reason. Alerts rotate over many accounts
+ * with a one second de-duplication window, so the measurement mixes enqueued, de-duplicated and
+ * overflowing alerts the way a fraud burst does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AlertingServiceBenchmark {
+
+    @Param({"HIGH_VALUE", "SUSPICIOUS_LOCATION", "RAPID_SUCCESSION"})
+    public String reason;
+
+    private static final int ACCOUNTS = 1 << 16;
+
+    private AlertingService alertingService;
+    private Transaction[] transactions;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        alertingService = new AlertingService(new SimpleMeterRegistry(), List.of(alerts -> { }), 8192, 100, 50, 1);
+        transactions = new Transaction[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            transactions[i] = BenchmarkData.transaction("ALERT-" + i, "2500.00", System.currentTimeMillis());
+            transactions[i].setId((long) i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        alertingService.close();
+    }
+
+    @Benchmark
+    public void sendAlert() {
+        alertingService.sendAlert(transactions[next++ & (ACCOUNTS - 1)], reason);
+    }
+}
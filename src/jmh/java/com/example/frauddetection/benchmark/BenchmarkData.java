@@ -0,0 +1,79 @@
+package com.example.frauddetection.benchmark;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.model.TransactionWindowEntry;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.FraudDetectionService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared fixtures: realistic account histories and a repository that serves them from memory,
+ * so the benchmarks measure the service rather than a database.
+ */
+final class BenchmarkData {
+    static final long DAY_MILLIS = TimeUnit.HOURS.toMillis(24);
+    static final String[] LOCATIONS = {"London", "Paris", "Berlin", "Madrid"};
+    static final String[] CURRENCIES = {"GBP", "EUR", "USD"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * History of {@code size} approved transactions spread evenly over the last 24 hours, mostly
+     * from one location and currency like a typical card holder.
+     */
+    static List<Transaction> history(String accountId, int size, long nowMillis) {
+        List<Transaction> history = new ArrayList<>(size);
+        long spacing = DAY_MILLIS / (size + 1);
+        for (int i = size; i > 0; i--) {
+            Transaction transaction = transaction(accountId, "45.00", nowMillis - i * spacing);
+            transaction.setLocation(i % 10 == 0 ? LOCATIONS[1] : LOCATIONS[0]);
+            transaction.setCurrency(i % 10 == 0 ? CURRENCIES[1] : CURRENCIES[0]);
+            transaction.setStatus(Transaction.TransactionStatus.APPROVED);
+            history.add(transaction);
+        }
+        return history;
+    }
+
+    static Transaction transaction(String accountId, String amount, long timestampMillis) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setTimestamp(new Date(timestampMillis));
+        transaction.setMerchantId("MERCHANT-1");
+        transaction.setLocation(LOCATIONS[0]);
+        transaction.setCurrency(CURRENCIES[0]);
+        return transaction;
+    }
+
+    static TransactionRepository repository(List<Transaction> history) {
+        List<TransactionWindowEntry> entries = history.stream().map(TransactionWindowEntry::of).toList();
+        return (TransactionRepository) Proxy.newProxyInstance(
+            TransactionRepository.class.getClassLoader(),
+            new Class<?>[]{TransactionRepository.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "findRecentTransactionsByAccount" -> history;
+                case "findRecentWindowEntriesByAccount" -> entries;
+                case "countRecentSuspiciousTransactions" -> 0L;
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "InMemoryTransactionRepository";
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    static FraudDetectionService service(TransactionRepository repository) {
+        FraudDetectionService service = new FraudDetectionService(repository);
+        ReflectionTestUtils.setField(service, "amountThreshold", new BigDecimal("1000"));
+        ReflectionTestUtils.setField(service, "suspiciousTransactionsThreshold", 3);
+        ReflectionTestUtils.setField(service, "locationChangeThreshold", new BigDecimal("500"));
+        return service;
+    }
+}
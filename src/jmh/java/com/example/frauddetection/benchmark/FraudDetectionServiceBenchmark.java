@@ -0,0 +1,84 @@
+package com.example.frauddetection.benchmark;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.FraudDetectionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decision latency of {@link FraudDetectionService#analyzeTransaction} for accounts with
+ * 10, 100 and 1000 transactions in their 24 hour window.
+ * <ul>
+ *   <li>{@code coldCache}: every call hits an account the service has never seen, so the
+ *   window is seeded from the repository first.</li>
+ *   <li>{@code warmCache}: a resident account; transaction times advance so the window stays
+ *   at its configured size.</li>
+ *   <li>{@code highValue}: decided by a transaction-only rule for a non-resident account, so no
+ *   account state is touched.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FraudDetectionServiceBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int historySize;
+
+    private FraudDetectionService service;
+    private TransactionRepository repository;
+    private Transaction warmTransaction;
+    private Transaction highValueTransaction;
+    private long spacing;
+    private long clock;
+    private int coldAccount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long now = System.currentTimeMillis();
+        List<Transaction> history = BenchmarkData.history("WARM", historySize, now);
+        repository = BenchmarkData.repository(history);
+        service = BenchmarkData.service(repository);
+        spacing = BenchmarkData.DAY_MILLIS / (historySize + 1);
+        clock = now;
+
+        warmTransaction = BenchmarkData.transaction("WARM", "45.00", clock);
+        highValueTransaction = BenchmarkData.transaction("HIGH", "2500.00", clock);
+        service.analyzeTransaction(warmTransaction);
+    }
+
+    @Benchmark
+    public Transaction.TransactionStatus warmCache() {
+        clock += spacing;
+        warmTransaction.getTimestamp().setTime(clock);
+        return service.analyzeTransaction(warmTransaction);
+    }
+
+    @Benchmark
+    public Transaction.TransactionStatus coldCache() {
+        Transaction transaction = BenchmarkData.transaction("COLD-" + coldAccount++, "45.00", clock);
+        return service.analyzeTransaction(transaction);
+    }
+
+    @Benchmark
+    public Transaction.TransactionStatus highValue() {
+        return service.analyzeTransaction(highValueTransaction);
+    }
+}
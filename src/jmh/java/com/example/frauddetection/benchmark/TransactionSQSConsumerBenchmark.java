@@ -0,0 +1,80 @@
+package com.example.frauddetection.benchmark;
+
+import com.example.frauddetection.FraudDetectionApplication;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.service.TransactionSQSConsumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full {@link TransactionSQSConsumer#receiveMessage} path - async hand-off, analysis,
+ * insert into an in-process H2 database and alerting - with the SQS integration disabled so
+ * messages are handed to the listener method directly.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionSQSConsumerBenchmark {
+    private static final int ACCOUNTS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private TransactionSQSConsumer consumer;
+    private long clock;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FraudDetectionApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.cloud.aws.sqs.enabled=false",
+                "spring.cloud.aws.credentials.access-key=benchmark",
+                "spring.cloud.aws.credentials.secret-key=benchmark",
+                "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false",
+                "logging.config=classpath:logback-benchmark.xml")
+            .run();
+        consumer = context.getBean(TransactionSQSConsumer.class);
+        clock = System.currentTimeMillis();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void receiveMessage() {
+        int next;
+        long timestamp;
+        synchronized (this) {
+            next = sequence++;
+            clock += 1000;
+            timestamp = clock;
+        }
+        // Every 50th transaction is high-value so the alerting branch is part of the mix
+        String amount = next % 50 == 0 ? "2500.00" : "45.00";
+        Transaction transaction = BenchmarkData.transaction("ACC-" + (next % ACCOUNTS), amount, timestamp);
+        consumer.receiveMessage(MessageBuilder.withPayload(transaction).build()).join();
+    }
+}
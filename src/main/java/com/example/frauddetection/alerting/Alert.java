@@ -0,0 +1,23 @@
+package com.example.frauddetection.alerting;
+
+import com.example.frauddetection.model.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable snapshot of a fraud alert, taken on the consumer thread so the transaction can be
+ * reused or modified while the alert waits for dispatch.
+ */
+public record Alert(Long transactionId,
+                    String accountId,
+                    BigDecimal amount,
+                    String currency,
+                    String location,
+                    String reason,
+                    long raisedAtMillis) {
+
+    public static Alert of(Transaction transaction, String reason, long raisedAtMillis) {
+        return new Alert(transaction.getId(), transaction.getAccountId(), transaction.getAmount(),
+            transaction.getCurrency(), transaction.getLocation(), reason, raisedAtMillis);
+    }
+}
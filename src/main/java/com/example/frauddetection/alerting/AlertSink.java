@@ -0,0 +1,12 @@
+package com.example.frauddetection.alerting;
+
+import java.util.List;
+
+/**
+ * Destination for dispatched alerts. Sinks are called from the alert dispatcher thread only,
+ * one batch at a time, so implementations need not be thread-safe and may block.
+ */
+public interface AlertSink {
+
+    void deliver(List<Alert> alerts) throws Exception;
+}
@@ -0,0 +1,40 @@
+package com.example.frauddetection.alerting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends alerts as newline-delimited JSON to a local file, one write per batch.
+ */
+@Component
+@ConditionalOnProperty(name = "fraud.alerts.file.path")
+public class FileAlertSink implements AlertSink {
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileAlertSink(@Value("${fraud.alerts.file.path}") String path, ObjectMapper objectMapper) {
+        this.path = Path.of(path);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void deliver(List<Alert> alerts) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Alert alert : alerts) {
+                writer.write(objectMapper.writeValueAsString(alert));
+                writer.write('\n');
+            }
+        }
+    }
+}
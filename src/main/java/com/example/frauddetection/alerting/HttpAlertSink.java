@@ -0,0 +1,48 @@
+package com.example.frauddetection.alerting;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Posts each batch of alerts as a JSON array to an HTTP endpoint.
+ */
+@Component
+@ConditionalOnProperty(name = "fraud.alerts.http.url")
+public class HttpAlertSink implements AlertSink {
+    private final URI uri;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    public HttpAlertSink(@Value("${fraud.alerts.http.url}") String url,
+                         @Value("${fraud.alerts.http.timeout-ms:2000}") long timeoutMillis,
+                         ObjectMapper objectMapper) {
+        this.uri = URI.create(url);
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void deliver(List<Alert> alerts) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(alerts)))
+            .build();
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 300) {
+            throw new IOException("Alert endpoint " + uri + " responded with " + response.statusCode());
+        }
+    }
+}
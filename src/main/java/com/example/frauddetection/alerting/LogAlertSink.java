@@ -0,0 +1,26 @@
+package com.example.frauddetection.alerting;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class LogAlertSink implements AlertSink {
+    private static final Logger log = LoggerFactory.getLogger(LogAlertSink.class);
+
+    @Override
+    public void deliver(List<Alert> alerts) {
+        for (Alert alert : alerts) {
+            log.atError()
+                .setMessage("FRAUD ALERT - {}")
+                .addArgument(alert.reason())
+                .addKeyValue("transactionId", alert.transactionId())
+                .addKeyValue("account", alert.accountId())
+                .addKeyValue("amount", alert.amount())
+                .addKeyValue("location", alert.location())
+                .log();
+        }
+    }
+}
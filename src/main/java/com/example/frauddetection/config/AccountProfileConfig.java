@@ -0,0 +1,22 @@
+package com.example.frauddetection.config;
+
+import com.example.frauddetection.service.AccountProfileStore;
+import com.example.frauddetection.service.AccountWindow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AccountProfileConfig {
+    private static final Logger log = LoggerFactory.getLogger(AccountProfileConfig.class);
+
+    @Bean
+    public AccountProfileStore accountProfileStore(@Value("${fraud.profiles.capacity:2097152}") int capacity) {
+        AccountProfileStore store = new AccountProfileStore(capacity);
+        log.info("Allocated {} account profile slots ({} MiB off-heap)", store.capacity(),
+            store.capacity() * AccountWindow.RECORD_BYTES >> 20);
+        return store;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.frauddetection.config;
+
+import com.example.frauddetection.service.AccountPartitionedExecutor;
+import com.example.frauddetection.service.BoundedVirtualThreadExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+public class ConsumerExecutorConfig {
+    private static final Logger log = LoggerFactory.getLogger(ConsumerExecutorConfig.class);
+
+    @Bean(name = "asyncExecutor")
+    public Executor asyncExecutor(@Value("${fraud.consumer.executor:platform}") String mode,
+                                  @Value("${fraud.consumer.max-concurrency:10}") int maxConcurrency,
+                                  MeterRegistry registry) {
+        if ("virtual".equalsIgnoreCase(mode)) {
+            // One virtual thread per message, capped so in-flight work never exceeds the datasource pool
+            log.info("Using virtual-thread execution with at most {} messages in flight", maxConcurrency);
+            BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("VirtualAsync-", maxConcurrency);
+            registry.gauge("fraud.consumer.in_flight", executor, BoundedVirtualThreadExecutor::getInFlight);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(10);
+        executor.setMaxPoolSize(20);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("AsyncThread-");
+        executor.initialize();
+        registry.gauge("fraud.consumer.in_flight", executor, ThreadPoolTaskExecutor::getActiveCount);
+        return executor;
+    }
+
+    @Bean
+    public AccountPartitionedExecutor accountPartitionedExecutor(@Qualifier("asyncExecutor") Executor asyncExecutor,
+                                                                 @Value("${fraud.consumer.lanes:64}") int lanes,
+                                                                 MeterRegistry registry) {
+        AccountPartitionedExecutor executor = new AccountPartitionedExecutor(asyncExecutor, lanes);
+        registry.gauge("fraud.consumer.queue.depth", executor, AccountPartitionedExecutor::getPendingTasks);
+        return executor;
+    }
+
+    /**
+     * Scoring requests run on virtual threads of their own, so they never queue behind consumer
+     * backlog in the account lanes.
+     */
+    @Bean(name = "scoringExecutor", destroyMethod = "close")
+    public BoundedVirtualThreadExecutor scoringExecutor(@Value("${fraud.scoring.max-concurrency:256}") int maxConcurrency,
+                                                        MeterRegistry registry) {
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("Scoring-", maxConcurrency);
+        registry.gauge("fraud.scoring.in_flight", executor, BoundedVirtualThreadExecutor::getInFlight);
+        return executor;
+    }
+}
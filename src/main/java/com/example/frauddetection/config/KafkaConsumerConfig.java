@@ -0,0 +1,71 @@
+package com.example.frauddetection.config;
+
+import com.example.frauddetection.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "fraud.consumer.kafka.enabled", havingValue = "true")
+public class KafkaConsumerConfig {
+    public static final String CONTAINER_FACTORY = "transactionKafkaListenerContainerFactory";
+
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 100;
+    private static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+
+    @Bean
+    public ConsumerFactory<String, Transaction> transactionConsumerFactory(KafkaProperties kafkaProperties,
+                                                                           ObjectMapper objectMapper,
+                                                                           @Value("${fraud.consumer.kafka.group-id:fraud-detection}") String groupId,
+                                                                           @Value("${fraud.consumer.kafka.max-poll-records:500}") int maxPollRecords) {
+        Map<String, Object> properties = new HashMap<>(kafkaProperties.buildConsumerProperties());
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        // Offsets are committed by the listener once a batch is durable
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        // Rebalances only move the partitions they have to, so most accounts keep their warm profiles
+        properties.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+        // A record that is not a transaction arrives as a null value instead of failing the whole poll
+        ErrorHandlingDeserializer<Transaction> valueDeserializer =
+            new ErrorHandlingDeserializer<>(new JsonDeserializer<>(Transaction.class, objectMapper, false));
+        return new DefaultKafkaConsumerFactory<>(properties, new StringDeserializer(), valueDeserializer);
+    }
+
+    /**
+     * Batch listeners with manual acknowledgment. A batch that fails is redelivered from its first
+     * record with growing delays and never skipped, so a database outage stalls the partitions
+     * rather than dropping their transactions. The listener reuses the verdicts of records it
+     * decided before the failure, see {@link com.example.frauddetection.service.TransactionKafkaConsumer}.
+     */
+    @Bean(name = CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, Transaction> transactionKafkaListenerContainerFactory(
+            ConsumerFactory<String, Transaction> transactionConsumerFactory,
+            @Value("${fraud.consumer.kafka.concurrency:4}") int concurrency) {
+        ConcurrentKafkaListenerContainerFactory<String, Transaction> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(transactionConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        ExponentialBackOff backOff = new ExponentialBackOff(INITIAL_RETRY_DELAY_MILLIS, 2.0);
+        backOff.setMaxInterval(MAX_RETRY_DELAY_MILLIS);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return factory;
+    }
+}
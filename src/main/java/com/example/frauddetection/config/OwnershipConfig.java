@@ -0,0 +1,57 @@
+package com.example.frauddetection.config;
+
+import com.example.frauddetection.ownership.AccountOwnership;
+import com.example.frauddetection.ownership.DnsMembership;
+import com.example.frauddetection.ownership.HttpOwnershipTransport;
+import com.example.frauddetection.ownership.Membership;
+import com.example.frauddetection.ownership.StaticMembership;
+import com.example.frauddetection.service.FraudDetectionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class OwnershipConfig {
+    private static final Logger log = LoggerFactory.getLogger(OwnershipConfig.class);
+
+    /**
+     * Members come from {@code fraud.ownership.dns-name} if set, otherwise from the static
+     * {@code fraud.ownership.members} list. With ownership disabled this instance is the only
+     * member and owns every account. Enabling it requires {@code fraud.ownership.secret}, the
+     * secret members present to each other's {@code /internal} endpoints.
+     */
+    @Bean
+    public AccountOwnership accountOwnership(FraudDetectionService fraudDetectionService,
+                                             ObjectMapper objectMapper,
+                                             MeterRegistry registry,
+                                             @Value("${fraud.ownership.enabled:false}") boolean enabled,
+                                             @Value("${fraud.ownership.self:}") String self,
+                                             @Value("${fraud.ownership.dns-name:}") String dnsName,
+                                             @Value("${fraud.ownership.members:}") List<String> members,
+                                             @Value("${fraud.ownership.secret:}") String secret,
+                                             @Value("${server.port:8080}") int port,
+                                             @Value("${fraud.ownership.points-per-member:128}") int pointsPerMember,
+                                             @Value("${fraud.ownership.refresh-interval-seconds:5}") long refreshIntervalSeconds,
+                                             @Value("${fraud.ownership.forward-timeout-ms:2000}") long forwardTimeoutMillis) throws UnknownHostException {
+        if (!enabled) {
+            return new AccountOwnership("local", new StaticMembership(List.of()), null, fraudDetectionService, registry, 1, 0);
+        }
+        if (secret.isBlank()) {
+            throw new IllegalStateException("fraud.ownership.secret must be set when fraud.ownership.enabled is true");
+        }
+        String selfUrl = self.isBlank() ? DnsMembership.memberUrl(InetAddress.getLocalHost().getHostAddress(), port) : self;
+        Membership membership = dnsName.isBlank() ? new StaticMembership(members) : new DnsMembership(dnsName, port);
+        log.info("Sharding accounts as {} with members from {}", selfUrl, dnsName.isBlank() ? members : dnsName);
+        return new AccountOwnership(selfUrl, membership, new HttpOwnershipTransport(objectMapper, Duration.ofMillis(forwardTimeoutMillis), secret),
+            fraudDetectionService, registry, pointsPerMember, refreshIntervalSeconds);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.frauddetection.config;
+
+import com.example.frauddetection.journal.JournalTransactionWriter;
+import com.example.frauddetection.journal.TransactionJournal;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.CircuitBreaker;
+import com.example.frauddetection.service.DirectTransactionWriter;
+import com.example.frauddetection.service.RepositoryGuard;
+import com.example.frauddetection.service.TransactionWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+public class PersistenceConfig {
+    private static final Logger log = LoggerFactory.getLogger(PersistenceConfig.class);
+    private static final String DEAD_LETTER_DIRECTORY = "dead-letters";
+    private static final int DEAD_LETTER_SEGMENT_BYTES = 1 << 20;
+
+    @Bean
+    @ConditionalOnProperty(name = "fraud.persistence.mode", havingValue = "direct", matchIfMissing = true)
+    public TransactionWriter directTransactionWriter(TransactionRepository transactionRepository) {
+        return new DirectTransactionWriter(transactionRepository);
+    }
+
+    /**
+     * Closed after the consumers have stopped, so the last decisions are synced and, if the
+     * database is up, inserted before shutdown.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "fraud.persistence.mode", havingValue = "journal")
+    public TransactionWriter journalTransactionWriter(TransactionRepository transactionRepository,
+                                                     MeterRegistry registry,
+                                                     @Value("${fraud.persistence.journal.directory}") String directory,
+                                                     @Value("${fraud.persistence.journal.segment-mb:64}") int segmentMb,
+                                                     @Value("${fraud.persistence.journal.max-backlog-mb:4096}") long maxBacklogMb,
+                                                     @Value("${fraud.persistence.journal.batch-size:500}") int batchSize,
+                                                     @Value("${fraud.persistence.journal.linger-ms:1}") long lingerMillis) throws IOException {
+        TransactionJournal journal = new TransactionJournal(Path.of(directory), segmentMb << 20, maxBacklogMb << 20);
+        // Rows the database rejects; kept until an operator deals with them
+        TransactionJournal deadLetters = new TransactionJournal(Path.of(directory, DEAD_LETTER_DIRECTORY), DEAD_LETTER_SEGMENT_BYTES, Long.MAX_VALUE);
+        log.info("Journaling transactions to {}, {} bytes not yet in the database", directory, journal.getBacklogBytes());
+        return new JournalTransactionWriter(journal, deadLetters, transactionRepository, registry, batchSize, lingerMillis);
+    }
+
+    /**
+     * Guards the history queries decisions wait on. The breaker state is exported as a gauge,
+     * 0 closed, 1 half-open and 2 open.
+     */
+    @Bean(destroyMethod = "close")
+    public RepositoryGuard repositoryGuard(MeterRegistry registry,
+                                           @Value("${fraud.persistence.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                           @Value("${fraud.persistence.circuit-breaker.open-ms:5000}") long openMillis,
+                                           @Value("${fraud.persistence.circuit-breaker.slow-call-ms:1000}") long slowCallMillis,
+                                           @Value("${fraud.persistence.circuit-breaker.max-concurrent-queries:64}") int maxConcurrentQueries) {
+        Map<CircuitBreaker.State, Counter> transitions = new EnumMap<>(CircuitBreaker.State.class);
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            transitions.put(state, registry.counter("fraud.repository.circuit.transitions", "state", state.name().toLowerCase()));
+        }
+        CircuitBreaker circuitBreaker = new CircuitBreaker(failureThreshold, openMillis, state -> {
+            transitions.get(state).increment();
+            log.warn("Repository circuit breaker is now {}", state);
+        });
+        RepositoryGuard guard = new RepositoryGuard(circuitBreaker, maxConcurrentQueries, slowCallMillis);
+        registry.gauge("fraud.repository.circuit.state", guard, g -> g.getState().ordinal());
+        registry.gauge("fraud.repository.queries.in_flight", guard, RepositoryGuard::getInFlight);
+        return guard;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.frauddetection.config;
+
+import com.example.frauddetection.rules.LocationIndex;
+import com.example.frauddetection.rules.TransactionCodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class RuleEngineConfig {
+    private static final Logger log = LoggerFactory.getLogger(RuleEngineConfig.class);
+
+    /**
+     * Shared by the detection service and every component that refers to transactions by code.
+     */
+    @Bean
+    public TransactionCodes transactionCodes() {
+        return new TransactionCodes();
+    }
+
+    @Bean
+    public LocationIndex locationIndex(TransactionCodes transactionCodes,
+                                       @Value("${fraud.detection.geo.locations-file:classpath:geo/locations.csv}") Resource file) throws IOException {
+        if (!file.exists()) {
+            log.warn("Location index {} not found, geo-velocity checks are disabled", file.getDescription());
+            return LocationIndex.EMPTY;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            LocationIndex index = LocationIndex.load(reader, transactionCodes.locations());
+            log.info("Loaded {} locations from {}", index.size(), file.getDescription());
+            return index;
+        }
+    }
+}
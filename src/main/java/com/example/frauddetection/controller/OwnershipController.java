@@ -0,0 +1,131 @@
+package com.example.frauddetection.controller;
+
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.ownership.AccountOwnership;
+import com.example.frauddetection.ownership.ForwardedTransaction;
+import com.example.frauddetection.ownership.HttpOwnershipTransport;
+import com.example.frauddetection.service.AccountPartitionedExecutor;
+import com.example.frauddetection.service.AlertingService;
+import com.example.frauddetection.service.FraudDetectionService;
+import com.example.frauddetection.service.TransactionBatchProcessor;
+import com.example.frauddetection.service.TransactionWriter;
+import com.example.frauddetection.service.UndurableVerdicts;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receiving side of {@link AccountOwnership}, called by other instances only.
+ * {@code POST /internal/transactions} decides and persists transactions forwarded by the
+ * instance that received them; it answers once they are durable and never forwards them again,
+ * even if this instance's ring disagrees. {@code POST /internal/profiles} imports profiles handed
+ * off during a rebalance.
+ * <p>
+ * A sender that gave up waiting for an answer fails the message, and the queue delivers it
+ * again. The ids of messages persisted here are therefore remembered for
+ * {@code fraud.ownership.dedup-window-seconds}, and a message forwarded again within it is
+ * skipped; one decided here but not persisted reuses its verdict.
+ * <p>
+ * Registered only with ownership enabled. These endpoints share the port the load balancer
+ * exposes, so every request must carry {@code fraud.ownership.secret}, which only members know,
+ * in the {@value HttpOwnershipTransport#SECRET_HEADER} header; anything else is refused with 403.
+ */
+@RestController
+@RequestMapping("/internal")
+@ConditionalOnProperty(name = "fraud.ownership.enabled", havingValue = "true")
+public class OwnershipController {
+    private final TransactionBatchProcessor batchProcessor;
+    private final AccountOwnership accountOwnership;
+    private final UndurableVerdicts receivedMessages;
+    private final byte[] secret;
+
+    public OwnershipController(FraudDetectionService fraudDetectionService,
+                               TransactionWriter transactionWriter,
+                               AlertingService alertingService,
+                               AccountPartitionedExecutor accountPartitionedExecutor,
+                               AccountOwnership accountOwnership,
+                               @Value("${fraud.ownership.secret}") String secret,
+                               @Value("${fraud.ownership.dedup-window-seconds:300}") long dedupWindowSeconds) {
+        // Lag was recorded where the transactions were received
+        this.batchProcessor = new TransactionBatchProcessor(fraudDetectionService, transactionWriter, alertingService,
+            accountPartitionedExecutor, null, null);
+        this.accountOwnership = accountOwnership;
+        this.receivedMessages = new UndurableVerdicts(Duration.ofSeconds(dedupWindowSeconds));
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("/transactions")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void receiveTransactions(@RequestHeader(name = HttpOwnershipTransport.SECRET_HEADER, required = false) String secret,
+                                    @RequestBody List<ForwardedTransaction> forwarded) {
+        checkSecret(secret);
+        List<String> messageIds = new ArrayList<>(forwarded.size());
+        List<Transaction> transactions = new ArrayList<>(forwarded.size());
+        for (ForwardedTransaction transaction : forwarded) {
+            if (transaction.messageId() == null || !receivedMessages.isDurable(transaction.messageId())) {
+                messageIds.add(transaction.messageId());
+                transactions.add(transaction.transaction());
+            }
+        }
+        if (transactions.isEmpty()) {
+            return;
+        }
+        FraudVerdict[] verdicts = new FraudVerdict[transactions.size()];
+        for (int i = 0; i < verdicts.length; i++) {
+            verdicts[i] = messageIds.get(i) != null ? receivedMessages.get(messageIds.get(i)) : null;
+        }
+        try {
+            batchProcessor.process(transactions, verdicts);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < verdicts.length; i++) {
+                if (verdicts[i] != null && messageIds.get(i) != null) {
+                    receivedMessages.put(messageIds.get(i), verdicts[i]);
+                }
+            }
+            throw e;
+        }
+        for (String messageId : messageIds) {
+            if (messageId != null) {
+                receivedMessages.markDurable(messageId);
+            }
+        }
+    }
+
+    @PostMapping(path = "/profiles", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Map<String, Long> receiveProfiles(@RequestHeader(name = HttpOwnershipTransport.SECRET_HEADER, required = false) String secret,
+                                             InputStream profiles) throws IOException {
+        checkSecret(secret);
+        return Map.of("imported", accountOwnership.receive(profiles));
+    }
+
+    @ExceptionHandler(SecurityException.class)
+    public ProblemDetail forbidden(SecurityException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.FORBIDDEN, e.getMessage());
+    }
+
+    private void checkSecret(String presented) {
+        // Compared in constant time, so response times do not reveal how much of a guess matched
+        if (presented == null || !MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8))) {
+            throw new SecurityException("Not a member of the ownership ring");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.frauddetection.controller;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decision for one scored transaction: its status, the reasons that fired in evaluation order,
+ * and how far past its threshold each of them was. {@code partial} marks a decision made without
+ * the account's history, from the transaction-only rules alone.
+ */
+public record ScoreResponse(Transaction.TransactionStatus status,
+                            List<FraudReason> reasons,
+                            Map<FraudReason, Double> scores,
+                            boolean partial) {
+
+    public static ScoreResponse of(FraudVerdict verdict) {
+        return new ScoreResponse(verdict.status(), verdict.reasons(), verdict.scores(), verdict.partial());
+    }
+}
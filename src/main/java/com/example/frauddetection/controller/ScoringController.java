@@ -0,0 +1,63 @@
+package com.example.frauddetection.controller;
+
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.service.ScoringService;
+import com.example.frauddetection.service.ScoringTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code POST /score} decides one transaction and {@code POST /score/batch} a list of them, with
+ * the same JSON as the SQS messages. A decision not reached within the latency budget is
+ * answered with 503, so the caller can fall back to its own policy.
+ */
+@RestController
+@RequestMapping("/score")
+public class ScoringController {
+    private final ScoringService scoringService;
+    private final int maxBatchSize;
+
+    public ScoringController(ScoringService scoringService,
+                             @Value("${fraud.scoring.batch.max-size:500}") int maxBatchSize) {
+        this.scoringService = scoringService;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @PostMapping
+    public ScoreResponse score(@RequestBody Transaction transaction) {
+        return ScoreResponse.of(scoringService.score(transaction));
+    }
+
+    @PostMapping("/batch")
+    public List<ScoreResponse> scoreBatch(@RequestBody List<Transaction> transactions) {
+        if (transactions.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " transactions per batch, got " + transactions.size());
+        }
+        List<FraudVerdict> verdicts = scoringService.scoreAll(transactions);
+        List<ScoreResponse> responses = new ArrayList<>(verdicts.size());
+        for (FraudVerdict verdict : verdicts) {
+            responses.add(ScoreResponse.of(verdict));
+        }
+        return responses;
+    }
+
+    @ExceptionHandler(ScoringTimeoutException.class)
+    public ProblemDetail timedOut(ScoringTimeoutException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail invalid(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+}
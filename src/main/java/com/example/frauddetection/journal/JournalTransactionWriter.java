@@ -0,0 +1,271 @@
+package com.example.frauddetection.journal;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.TransactionWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence: a transaction is durable once it is in the {@link TransactionJournal},
+ * and a flusher thread inserts journaled transactions into the database in batches afterwards.
+ * A database outage only grows the journal backlog; decisions keep flowing until the backlog
+ * limit is reached.
+ * <p>
+ * A sync thread forces the journal to disk, taking whatever all lanes appended in the meantime in
+ * one fsync. The flusher advances the journal checkpoint after each committed batch; whatever was
+ * journaled but not checkpointed when the process stopped is inserted again after a restart, so
+ * a crash between an insert and its checkpoint can store a transaction twice.
+ * <p>
+ * A batch the database rejects for good, such as one with a row that violates a constraint, is
+ * inserted again one row at a time. Rows rejected on their own are moved to a dead-letter journal
+ * and skipped, so one bad row cannot hold back the checkpoint until the backlog fills up. Other
+ * failures, the database being down among them, are retried with backoff.
+ */
+public class JournalTransactionWriter implements TransactionWriter, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(JournalTransactionWriter.class);
+    private static final long IDLE_WAIT_MILLIS = 100;
+    private static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+
+    private final TransactionJournal journal;
+    private final TransactionRepository transactionRepository;
+    private final int batchSize;
+    private final long lingerMillis;
+    private final Timer syncTimer;
+    private final Timer flushTimer;
+    private final Counter flushFailureCounter;
+    private final Counter deadLetterCounter;
+    private final TransactionJournal deadLetters;
+    private final Thread syncThread;
+    private final Thread flushThread;
+    private volatile boolean running = true;
+
+    /**
+     * @param deadLetters receives the rows the database rejects; it is only appended to, never
+     *                    checkpointed, and closed with this writer
+     */
+    public JournalTransactionWriter(TransactionJournal journal,
+                                    TransactionJournal deadLetters,
+                                    TransactionRepository transactionRepository,
+                                    MeterRegistry registry,
+                                    int batchSize,
+                                    long lingerMillis) {
+        this.journal = journal;
+        this.deadLetters = deadLetters;
+        this.transactionRepository = transactionRepository;
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.syncTimer = Timer.builder("fraud.journal.sync")
+            .description("Time to force appended journal records to disk")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.flushTimer = Timer.builder("fraud.journal.flush")
+            .description("Time to insert one batch of journaled transactions into the database")
+            .register(registry);
+        this.flushFailureCounter = registry.counter("fraud.journal.flush.failures");
+        this.deadLetterCounter = registry.counter("fraud.journal.dead.letters");
+        registry.gauge("fraud.journal.backlog.bytes", journal, TransactionJournal::getBacklogBytes);
+        this.syncThread = new Thread(this::syncLoop, "journal-sync");
+        this.flushThread = new Thread(this::flushLoop, "journal-flush");
+        syncThread.setDaemon(true);
+        flushThread.setDaemon(true);
+        if (journal.getBacklogBytes() > 0) {
+            log.info("Replaying {} journal bytes not yet in the database", journal.getBacklogBytes());
+        }
+        syncThread.start();
+        flushThread.start();
+    }
+
+    @Override
+    public void write(Transaction transaction) {
+        await(journal.append(transaction));
+    }
+
+    @Override
+    public void writeAll(List<Transaction> transactions) {
+        await(journal.appendAll(transactions));
+    }
+
+    /**
+     * Stops both threads, then inserts what is left in the journal if the database is reachable.
+     * Anything that cannot be inserted stays in the journal for the next start.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        syncThread.interrupt();
+        flushThread.interrupt();
+        try {
+            syncThread.join();
+            flushThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            long checkpoint = -1;
+            while (journal.getBacklogBytes() > 0 && journal.getCheckpoint() != checkpoint) {
+                checkpoint = journal.getCheckpoint();
+                flushOnce();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Leaving {} journal bytes for the next start", journal.getBacklogBytes(), e);
+        } finally {
+            try {
+                journal.close();
+            } finally {
+                deadLetters.close();
+            }
+        }
+    }
+
+    private void await(CompletableFuture<Void> synced) {
+        try {
+            synced.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void syncLoop() {
+        while (running) {
+            try {
+                long startNanos = System.nanoTime();
+                if (journal.sync(IDLE_WAIT_MILLIS)) {
+                    syncTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                    if (lingerMillis > 0) {
+                        // Let more appends gather for the next fsync
+                        Thread.sleep(lingerMillis);
+                    }
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (UncheckedIOException e) {
+                log.error("Failed to sync the transaction journal", e);
+            }
+        }
+        try {
+            // Whatever was appended before close still gets synced
+            journal.sync(0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+        long retryDelayMillis = 0;
+        while (running) {
+            try {
+                if (retryDelayMillis > 0) {
+                    Thread.sleep(retryDelayMillis);
+                }
+                if (flushOnce() == 0) {
+                    Thread.sleep(IDLE_WAIT_MILLIS);
+                }
+                retryDelayMillis = 0;
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                flushFailureCounter.increment();
+                retryDelayMillis = Math.min(MAX_RETRY_DELAY_MILLIS, Math.max(IDLE_WAIT_MILLIS, 2 * retryDelayMillis));
+                log.warn("Failed to insert journaled transactions, retrying in {} ms", retryDelayMillis, e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of transactions inserted
+     */
+    private int flushOnce() {
+        long from = journal.getCheckpoint();
+        TransactionJournal.Batch batch = journal.read(from, batchSize);
+        if (batch.transactions().isEmpty()) {
+            if (batch.end() != from) {
+                commit(batch.end());
+            }
+            return 0;
+        }
+        try {
+            flushTimer.record(() -> transactionRepository.saveAll(batch.transactions()));
+        } catch (NonTransientDataAccessException e) {
+            if (!isRejection(e)) {
+                throw e;
+            }
+            log.warn("Database rejected a batch of {} journaled transactions, inserting them one by one",
+                batch.transactions().size(), e);
+            return flushOneByOne(from, batch.end());
+        }
+        commit(batch.end());
+        return batch.transactions().size();
+    }
+
+    /**
+     * Inserts the records between {@code from} and {@code end} one at a time, read afresh from the
+     * journal, checkpointing after each. Records the database rejects are dead-lettered; any other
+     * failure is thrown, and the next flush resumes at the first record not yet checkpointed.
+     *
+     * @return the number of transactions inserted
+     */
+    private int flushOneByOne(long from, long end) {
+        int inserted = 0;
+        long position = from;
+        while (position < end) {
+            TransactionJournal.Batch record = journal.read(position, 1);
+            if (record.transactions().isEmpty()) {
+                break;
+            }
+            Transaction transaction = record.transactions().get(0);
+            try {
+                transactionRepository.save(transaction);
+                inserted++;
+            } catch (NonTransientDataAccessException e) {
+                if (!isRejection(e)) {
+                    throw e;
+                }
+                deadLetter(transaction, e);
+            }
+            commit(record.end());
+            position = record.end();
+        }
+        return inserted;
+    }
+
+    private void deadLetter(Transaction transaction, RuntimeException cause) {
+        try {
+            deadLetters.append(transaction);
+            deadLetters.sync(0);
+        } catch (InterruptedException e) {
+            // Appended already, the journal forces it to disk on close
+            Thread.currentThread().interrupt();
+        }
+        deadLetterCounter.increment();
+        log.error("Database rejected the journaled transaction of account {} at {}, moved it to the dead-letter journal",
+            transaction.getAccountId(), transaction.getTimestamp(), cause);
+    }
+
+    /**
+     * @return true if the database refused the data itself, rather than being unreachable
+     */
+    private static boolean isRejection(NonTransientDataAccessException e) {
+        return !(e instanceof NonTransientDataAccessResourceException);
+    }
+
+    private void commit(long position) {
+        try {
+            journal.commit(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
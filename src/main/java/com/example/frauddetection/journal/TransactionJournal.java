@@ -0,0 +1,429 @@
+package com.example.frauddetection.journal;
+
+import com.example.frauddetection.model.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of analyzed transactions in memory-mapped segment files, so a decision can be
+ * acknowledged once it is on local disk and inserted into the database later.
+ * <p>
+ * Positions are byte offsets into one logical log; segment files of a fixed size hold consecutive
+ * ranges of it and are named after their first offset. Each record is an {@code int} length, a
+ * CRC32C of the payload and the payload; a record never spans segments, unused space at the end
+ * of a segment is left zeroed. Records up to the checkpoint are in the database. On open, the log
+ * is scanned from the checkpoint to the first zeroed or corrupt record, which is where a crash
+ * interrupted writing, and appending resumes there.
+ * <p>
+ * Appends are serialized by the journal's monitor. {@link #sync} forces written records to disk
+ * and completes the futures {@link #append} returned for them; calling it from one thread in a
+ * loop batches the fsyncs of concurrent appends.
+ */
+public class TransactionJournal implements AutoCloseable {
+    private static final int HEADER_BYTES = 8;
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBacklogBytes;
+    private final FileChannel checkpointChannel;
+    private final ByteBuffer checkpointBuffer = ByteBuffer.allocate(Long.BYTES);
+    private final ArrayDeque<PendingSync> pendingSyncs = new ArrayDeque<>();
+
+    // Guarded by this
+    private MappedByteBuffer writeSegment;
+    private long writeSegmentStart;
+    private long writePosition;
+    private MappedByteBuffer readSegment;
+    private long readSegmentStart = -1;
+
+    private volatile long syncedPosition;
+    private volatile long checkpoint;
+
+    /**
+     * Opens the journal in {@code directory}, creating it if needed, and recovers the end of the log.
+     *
+     * @param maxBacklogBytes appends fail once the records not yet in the database take this much
+     */
+    public TransactionJournal(Path directory, int segmentBytes, long maxBacklogBytes) throws IOException {
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("Journal segments must be at least 4096 bytes");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxBacklogBytes = maxBacklogBytes;
+        this.checkpointChannel = FileChannel.open(directory.resolve("checkpoint"),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        checkpointBuffer.clear();
+        long stored = checkpointChannel.read(checkpointBuffer, 0) == Long.BYTES ? checkpointBuffer.getLong(0) : 0;
+        this.checkpoint = Math.max(stored, firstSegmentStart(stored));
+        recover();
+    }
+
+    /**
+     * Writes the transaction to the log.
+     *
+     * @return a future completed once the record is on disk, or failed if the journal is closed first
+     * @throws IllegalStateException if the backlog is at its limit
+     */
+    public CompletableFuture<Void> append(Transaction transaction) {
+        return appendAll(List.of(transaction));
+    }
+
+    /**
+     * Writes the transactions to the log in order; see {@link #append}.
+     */
+    public CompletableFuture<Void> appendAll(List<Transaction> transactions) {
+        List<byte[]> payloads = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            payloads.add(encode(transaction));
+        }
+        CRC32C crc = new CRC32C();
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        synchronized (this) {
+            if (writePosition - checkpoint > maxBacklogBytes) {
+                throw new IllegalStateException("Journal backlog exceeds " + maxBacklogBytes + " bytes");
+            }
+            for (byte[] payload : payloads) {
+                int length = HEADER_BYTES + payload.length;
+                if (length > segmentBytes) {
+                    throw new IllegalArgumentException("Transaction of " + payload.length + " bytes does not fit a journal segment");
+                }
+                if (writePosition - writeSegmentStart + length > segmentBytes) {
+                    rollSegment();
+                }
+                crc.reset();
+                crc.update(payload);
+                int offset = (int) (writePosition - writeSegmentStart);
+                writeSegment.putInt(offset + 4, (int) crc.getValue());
+                writeSegment.put(offset + HEADER_BYTES, payload);
+                // Length last: a record is only visible to recovery once it is complete
+                writeSegment.putInt(offset, payload.length);
+                writePosition += length;
+            }
+            pendingSyncs.add(new PendingSync(writePosition, synced));
+            notifyAll();
+        }
+        return synced;
+    }
+
+    /**
+     * Waits up to {@code timeoutMillis}, if positive, for unsynced records, forces them to disk and
+     * completes their futures.
+     *
+     * @return true if anything was synced
+     */
+    public boolean sync(long timeoutMillis) throws InterruptedException {
+        MappedByteBuffer segment;
+        long segmentStart;
+        long from;
+        long to;
+        synchronized (this) {
+            if (writePosition == syncedPosition && timeoutMillis > 0) {
+                wait(timeoutMillis);
+            }
+            if (writePosition == syncedPosition) {
+                return false;
+            }
+            segment = writeSegment;
+            segmentStart = writeSegmentStart;
+            to = writePosition;
+            // Earlier segments were forced when the writer rolled over
+            from = Math.max(syncedPosition, writeSegmentStart);
+        }
+        segment.force((int) (from - segmentStart), (int) (to - from));
+        List<PendingSync> completed = new ArrayList<>();
+        synchronized (this) {
+            syncedPosition = to;
+            while (!pendingSyncs.isEmpty() && pendingSyncs.peek().position() <= to) {
+                completed.add(pendingSyncs.poll());
+            }
+        }
+        for (PendingSync pending : completed) {
+            pending.future().complete(null);
+        }
+        return true;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} synced records starting at {@code from}, a checkpoint or the
+     * end of a previous batch. Only one thread may read at a time.
+     */
+    public Batch read(long from, int maxRecords) {
+        List<Transaction> transactions = new ArrayList<>();
+        long position = from;
+        long to = syncedPosition;
+        synchronized (this) {
+            while (position < to && transactions.size() < maxRecords) {
+                long segmentStart = position - Math.floorMod(position, (long) segmentBytes);
+                int offset = (int) (position - segmentStart);
+                MappedByteBuffer segment = readSegment(segmentStart);
+                int length = offset + HEADER_BYTES <= segmentBytes ? segment.getInt(offset) : 0;
+                if (length == 0) {
+                    // Rest of the segment unused, the log continues in the next one
+                    position = segmentStart + segmentBytes;
+                    continue;
+                }
+                byte[] payload = new byte[length];
+                segment.get(offset + HEADER_BYTES, payload);
+                transactions.add(decode(payload));
+                position += HEADER_BYTES + length;
+            }
+        }
+        return new Batch(transactions, position);
+    }
+
+    /**
+     * Records that everything before {@code position} is in the database and deletes the
+     * segments that are no longer needed.
+     */
+    public void commit(long position) throws IOException {
+        checkpointBuffer.clear();
+        checkpointBuffer.putLong(0, position);
+        checkpointChannel.write(checkpointBuffer, 0);
+        checkpointChannel.force(false);
+        checkpoint = position;
+        long keepFrom = position - Math.floorMod(position, (long) segmentBytes);
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "segment-*.log")) {
+            for (Path segment : segments) {
+                long start = segmentStart(segment);
+                synchronized (this) {
+                    if (start < keepFrom && start != writeSegmentStart) {
+                        if (start == readSegmentStart) {
+                            readSegment = null;
+                            readSegmentStart = -1;
+                        }
+                        Files.deleteIfExists(segment);
+                    }
+                }
+            }
+        }
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public long getSyncedPosition() {
+        return syncedPosition;
+    }
+
+    /**
+     * @return bytes of records not yet in the database
+     */
+    public long getBacklogBytes() {
+        return syncedPosition - checkpoint;
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<PendingSync> abandoned;
+        synchronized (this) {
+            if (writeSegment != null) {
+                writeSegment.force();
+            }
+            abandoned = new ArrayList<>(pendingSyncs);
+            pendingSyncs.clear();
+            syncedPosition = writePosition;
+        }
+        for (PendingSync pending : abandoned) {
+            // Forced above, but whoever waits may be gone; the record itself is safe in the log
+            pending.future().complete(null);
+        }
+        checkpointChannel.close();
+    }
+
+    private void recover() throws IOException {
+        long position = checkpoint;
+        CRC32C crc = new CRC32C();
+        while (true) {
+            long segmentStart = position - Math.floorMod(position, (long) segmentBytes);
+            int offset = (int) (position - segmentStart);
+            MappedByteBuffer segment = Files.exists(segmentPath(segmentStart)) ? readSegment(segmentStart) : null;
+            if (segment == null) {
+                break;
+            }
+            int length = offset + HEADER_BYTES <= segmentBytes ? segment.getInt(offset) : 0;
+            if (length == 0) {
+                if (!Files.exists(segmentPath(segmentStart + segmentBytes))) {
+                    break;
+                }
+                position = segmentStart + segmentBytes;
+                continue;
+            }
+            if (length < 0 || offset + HEADER_BYTES + length > segmentBytes) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            segment.get(offset + HEADER_BYTES, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != segment.getInt(offset + 4)) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        writeSegmentStart = position - Math.floorMod(position, (long) segmentBytes);
+        writeSegment = mapSegment(writeSegmentStart);
+        // Clear whatever a crash left after the last complete record
+        byte[] zeros = new byte[64 * 1024];
+        for (int offset = (int) (position - writeSegmentStart); offset < segmentBytes; offset += zeros.length) {
+            writeSegment.put(offset, zeros, 0, Math.min(zeros.length, segmentBytes - offset));
+        }
+        writeSegment.force();
+        writePosition = position;
+        syncedPosition = position;
+        readSegment = null;
+        readSegmentStart = -1;
+    }
+
+    private void rollSegment() {
+        writeSegment.force();
+        writeSegmentStart += segmentBytes;
+        writePosition = writeSegmentStart;
+        try {
+            writeSegment = mapSegment(writeSegmentStart);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedByteBuffer readSegment(long segmentStart) {
+        if (segmentStart != readSegmentStart) {
+            try {
+                readSegment = segmentStart == writeSegmentStart && writeSegment != null ? writeSegment : mapSegment(segmentStart);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            readSegmentStart = segmentStart;
+        }
+        return readSegment;
+    }
+
+    private MappedByteBuffer mapSegment(long segmentStart) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentStart),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private Path segmentPath(long segmentStart) {
+        return directory.resolve(String.format("segment-%020d.log", segmentStart));
+    }
+
+    private long firstSegmentStart(long fallback) throws IOException {
+        long first = Long.MAX_VALUE;
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "segment-*.log")) {
+            for (Path segment : segments) {
+                first = Math.min(first, segmentStart(segment));
+            }
+        }
+        return first == Long.MAX_VALUE ? fallback : first;
+    }
+
+    private static long segmentStart(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+    }
+
+    static byte[] encode(Transaction transaction) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writeString(out, transaction.getAccountId());
+            writeString(out, transaction.getCurrency());
+            writeString(out, transaction.getMerchantId());
+            writeString(out, transaction.getLocation());
+            writeString(out, transaction.getPreviousLocation());
+            writeString(out, transaction.getPreviousCurrency());
+            BigDecimal amount = transaction.getAmount();
+            out.writeBoolean(amount != null);
+            if (amount != null) {
+                byte[] unscaled = amount.unscaledValue().toByteArray();
+                out.writeInt(amount.scale());
+                out.writeShort(unscaled.length);
+                out.write(unscaled);
+            }
+            out.writeBoolean(transaction.getTimestamp() != null);
+            if (transaction.getTimestamp() != null) {
+                out.writeLong(transaction.getTimestamp().getTime());
+            }
+            out.writeByte(transaction.getStatus() != null ? transaction.getStatus().ordinal() : -1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Transaction decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unknown journal record version " + version);
+            }
+            Transaction transaction = new Transaction();
+            transaction.setAccountId(readString(in));
+            transaction.setCurrency(readString(in));
+            transaction.setMerchantId(readString(in));
+            transaction.setLocation(readString(in));
+            transaction.setPreviousLocation(readString(in));
+            transaction.setPreviousCurrency(readString(in));
+            if (in.readBoolean()) {
+                int scale = in.readInt();
+                byte[] unscaled = new byte[in.readShort()];
+                in.readFully(unscaled);
+                transaction.setAmount(new BigDecimal(new BigInteger(unscaled), scale));
+            }
+            if (in.readBoolean()) {
+                transaction.setTimestamp(new Date(in.readLong()));
+            }
+            int status = in.readByte();
+            if (status >= 0) {
+                transaction.setStatus(Transaction.TransactionStatus.values()[status]);
+            }
+            return transaction;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Records read from the journal, and the position right after the last of them.
+     */
+    public record Batch(List<Transaction> transactions, long end) {
+    }
+
+    private record PendingSync(long position, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.frauddetection.loadgen;
+
+import com.example.frauddetection.model.Transaction;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends {@link SyntheticTraffic} to an SQS queue at a fixed rate, in batches of ten (the SQS
+ * batch limit) with a bounded number of batches in flight. Each transaction is stamped just
+ * before it is sent, so the consumer's lag metric measures queueing time end to end.
+ */
+public class LoadGenerator {
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final int BATCH_SIZE = 10;
+
+    private final SqsTemplate sqsTemplate;
+    private final String queue;
+    private final SyntheticTraffic traffic;
+    private final int maxOutstandingBatches;
+
+    public LoadGenerator(SqsTemplate sqsTemplate, String queue, SyntheticTraffic traffic, int maxOutstandingBatches) {
+        this.sqsTemplate = sqsTemplate;
+        this.queue = queue;
+        this.traffic = traffic;
+        this.maxOutstandingBatches = maxOutstandingBatches;
+    }
+
+    /**
+     * Sends for {@code duration} and waits for every send to be acknowledged by SQS.
+     *
+     * @param ratePerSecond messages per second, or 0 to send as fast as SQS accepts them
+     */
+    public Result run(double ratePerSecond, Duration duration) throws InterruptedException {
+        Semaphore outstanding = new Semaphore(maxOutstandingBatches);
+        AtomicLong sent = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + duration.toNanos();
+        long nanosPerBatch = ratePerSecond > 0 ? (long) (BATCH_SIZE * 1e9 / ratePerSecond) : 0;
+        long batches = 0;
+        while (true) {
+            long dueNanos = startNanos + batches * nanosPerBatch;
+            if (dueNanos >= endNanos || System.nanoTime() >= endNanos) {
+                break;
+            }
+            long waitNanos = dueNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            outstanding.acquire();
+            long now = System.currentTimeMillis();
+            List<Message<Transaction>> messages = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                messages.add(MessageBuilder.withPayload(traffic.next(now)).build());
+            }
+            sqsTemplate.sendManyAsync(queue, messages).whenComplete((result, error) -> {
+                if (error != null) {
+                    failed.addAndGet(BATCH_SIZE);
+                    log.debug("Failed to send a batch to {}", queue, error);
+                } else {
+                    sent.addAndGet(result.successful().size());
+                    failed.addAndGet(result.failed().size());
+                }
+                outstanding.release();
+            });
+            batches++;
+        }
+        outstanding.acquire(maxOutstandingBatches);
+        outstanding.release(maxOutstandingBatches);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return new Result(sent.get(), failed.get(), elapsedMillis);
+    }
+
+    /**
+     * Messages SQS accepted and rejected, and the time until the last of them was acknowledged.
+     */
+    public record Result(long sent, long failed, long elapsedMillis) {
+
+        public double getSentPerSecond() {
+            return elapsedMillis == 0 ? 0 : sent * 1000.0 / elapsedMillis;
+        }
+    }
+}
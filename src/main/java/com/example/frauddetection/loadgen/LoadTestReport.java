@@ -0,0 +1,68 @@
+package com.example.frauddetection.loadgen;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of one load test. {@code throughputPerSecond} counts decisions from the start of sending
+ * until the queue was drained, so when the consumers fall behind it is their ceiling;
+ * {@code backlogAtEnd} is how far behind they were when sending stopped.
+ */
+public record LoadTestReport(double targetRate,
+                             long sent,
+                             long failed,
+                             double sentPerSecond,
+                             long processed,
+                             long elapsedMillis,
+                             double throughputPerSecond,
+                             long backlogAtEnd,
+                             boolean drained,
+                             Percentiles consumerLag,
+                             Percentiles approvedDecision,
+                             Percentiles flaggedDecision) {
+
+    /**
+     * @return a multi-line summary for the log
+     */
+    public String summary() {
+        return String.format("Sent %d messages (%.0f/s, target %s), %d failed%n", sent, sentPerSecond,
+                targetRate > 0 ? String.format("%.0f/s", targetRate) : "unbounded", failed)
+            + String.format("Processed %d in %d ms: %.0f decisions/s, backlog %d when sending stopped%s%n", processed,
+                elapsedMillis, throughputPerSecond, backlogAtEnd, drained ? "" : ", NOT drained")
+            + String.format("Consumer lag      %s%n", consumerLag)
+            + String.format("Decision approved %s%n", approvedDecision)
+            + String.format("Decision flagged  %s", flaggedDecision);
+    }
+
+    /**
+     * Latency percentiles in milliseconds, NaN where the timer does not publish that percentile.
+     */
+    public record Percentiles(double p50, double p99, double p999) {
+
+        static Percentiles of(Timer timer) {
+            double p50 = Double.NaN;
+            double p99 = Double.NaN;
+            double p999 = Double.NaN;
+            if (timer != null) {
+                for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+                    double millis = value.value(TimeUnit.MILLISECONDS);
+                    if (value.percentile() == 0.5) {
+                        p50 = millis;
+                    } else if (value.percentile() == 0.99) {
+                        p99 = millis;
+                    } else if (value.percentile() == 0.999) {
+                        p999 = millis;
+                    }
+                }
+            }
+            return new Percentiles(p50, p99, p999);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms", p50, p99, p999);
+        }
+    }
+}
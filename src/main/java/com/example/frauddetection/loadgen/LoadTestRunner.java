@@ -0,0 +1,127 @@
+package com.example.frauddetection.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load test mode, enabled by {@code fraud.loadgen.enabled} (see the {@code loadgen} profile):
+ * sends synthetic traffic to the queue this instance consumes, waits for the consumers to drain
+ * it, logs a {@link LoadTestReport} built from the consumer's own meters and exits. A warm-up
+ * phase first fills the account profiles and JIT-compiles the hot path; only the measured phase
+ * is reported. Latency percentiles are Micrometer's, which decay over about two minutes, so they
+ * describe the end of the run.
+ */
+@Component
+@ConditionalOnProperty(name = "fraud.loadgen.enabled", havingValue = "true")
+public class LoadTestRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(LoadTestRunner.class);
+    private static final long DRAIN_POLL_MILLIS = 200;
+
+    private final ApplicationContext context;
+    private final SqsTemplate sqsTemplate;
+    private final MeterRegistry registry;
+    private final ObjectMapper objectMapper;
+
+    @Value("${aws.sqs.queue.transactions}")
+    private String queue;
+
+    @Value("${fraud.loadgen.rate:1000}")
+    private double rate;
+
+    @Value("${fraud.loadgen.duration-seconds:60}")
+    private long durationSeconds;
+
+    @Value("${fraud.loadgen.warmup-seconds:15}")
+    private long warmupSeconds;
+
+    @Value("${fraud.loadgen.drain-timeout-seconds:120}")
+    private long drainTimeoutSeconds;
+
+    @Value("${fraud.loadgen.accounts:100000}")
+    private int accounts;
+
+    @Value("${fraud.loadgen.seed:42}")
+    private long seed;
+
+    @Value("${fraud.loadgen.max-outstanding-batches:64}")
+    private int maxOutstandingBatches;
+
+    @Value("${fraud.loadgen.report-file:}")
+    private String reportFile;
+
+    public LoadTestRunner(ApplicationContext context, SqsTemplate sqsTemplate, MeterRegistry registry, ObjectMapper objectMapper) {
+        this.context = context;
+        this.sqsTemplate = sqsTemplate;
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        LoadGenerator generator = new LoadGenerator(sqsTemplate, queue, new SyntheticTraffic(accounts, seed), maxOutstandingBatches);
+        if (warmupSeconds > 0) {
+            log.info("Warming up for {} s at {} messages/s", warmupSeconds, rate);
+            long processedBefore = processed();
+            LoadGenerator.Result warmup = generator.run(rate, Duration.ofSeconds(warmupSeconds));
+            awaitProcessed(processedBefore + warmup.sent());
+        }
+
+        log.info("Sending to {} for {} s at {} messages/s", queue, durationSeconds, rate > 0 ? rate : "unbounded");
+        long processedBefore = processed();
+        long startNanos = System.nanoTime();
+        LoadGenerator.Result result = generator.run(rate, Duration.ofSeconds(durationSeconds));
+        long backlogAtEnd = Math.max(0, result.sent() - (processed() - processedBefore));
+        boolean drained = awaitProcessed(processedBefore + result.sent());
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        long processed = processed() - processedBefore;
+
+        LoadTestReport report = new LoadTestReport(rate, result.sent(), result.failed(), result.getSentPerSecond(),
+            processed, elapsedMillis, elapsedMillis == 0 ? 0 : processed * 1000.0 / elapsedMillis, backlogAtEnd, drained,
+            LoadTestReport.Percentiles.of(registry.find("fraud.consumer.lag").timer()),
+            LoadTestReport.Percentiles.of(registry.find("fraud.decision.latency").tag("outcome", "approved").timer()),
+            LoadTestReport.Percentiles.of(registry.find("fraud.decision.latency").tag("outcome", "flagged").timer()));
+        log.info("{}", report.summary());
+        if (!reportFile.isBlank()) {
+            Files.write(Path.of(reportFile), objectMapper.writeValueAsBytes(report));
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+
+    /**
+     * @return decisions made so far, whatever their outcome
+     */
+    private long processed() {
+        long processed = 0;
+        for (Timer timer : registry.find("fraud.decision.latency").timers()) {
+            processed += timer.count();
+        }
+        return processed;
+    }
+
+    private boolean awaitProcessed(long target) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(drainTimeoutSeconds).toNanos();
+        while (processed() < target) {
+            if (System.nanoTime() > deadline) {
+                log.warn("Consumers did not drain the queue within {} s, {} messages left", drainTimeoutSeconds, target - processed());
+                return false;
+            }
+            Thread.sleep(DRAIN_POLL_MILLIS);
+        }
+        return true;
+    }
+}
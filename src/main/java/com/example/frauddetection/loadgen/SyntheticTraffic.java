@@ -0,0 +1,116 @@
+package com.example.frauddetection.loadgen;
+
+import com.example.frauddetection.model.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic stream of card-like transactions for load tests. Account activity follows a Zipf
+ * distribution, so a few hot accounts carry much of the traffic while most accounts are seen
+ * rarely. Each account has a home city, its currency and a typical spend; on top of that some
+ * transactions hop to another city or pay in a foreign currency, a few are high-value, and now
+ * and then an account fires a burst of transactions back to back. Not thread-safe.
+ */
+public class SyntheticTraffic {
+    // Cities of the default location index, so the geo-velocity rule sees real distances
+    private static final String[] CITIES = {
+        "London", "Paris", "Berlin", "Madrid", "New York", "Chicago", "Tokyo", "Singapore",
+        "Sydney", "Toronto", "Mumbai", "Sao Paulo"};
+    private static final String[] CURRENCIES = {
+        "GBP", "EUR", "EUR", "EUR", "USD", "USD", "JPY", "SGD", "AUD", "CAD", "INR", "BRL"};
+    private static final double ZIPF_EXPONENT = 1.1;
+    private static final int MERCHANTS = 5000;
+    private static final double LOCATION_HOP_RATE = 0.03;
+    private static final double FOREIGN_CURRENCY_RATE = 0.02;
+    private static final double HIGH_VALUE_RATE = 0.005;
+    private static final double BURST_RATE = 0.002;
+    private static final int MAX_BURST = 20;
+
+    private final SplittableRandom random;
+    private final double[] cumulativeWeights;
+    private int burstAccount;
+    private int burstRemaining;
+
+    public SyntheticTraffic(int accounts, long seed) {
+        if (accounts < 1) {
+            throw new IllegalArgumentException("accounts must be at least 1, was " + accounts);
+        }
+        this.random = new SplittableRandom(seed);
+        this.cumulativeWeights = new double[accounts];
+        double total = 0;
+        for (int rank = 0; rank < accounts; rank++) {
+            total += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulativeWeights[rank] = total;
+        }
+    }
+
+    /**
+     * @return the next transaction, stamped with {@code timestampMillis}
+     */
+    public Transaction next(long timestampMillis) {
+        int account = nextAccount();
+        // Per-account traits derive from the account number alone, so they never change
+        int home = Math.floorMod(mix(account), CITIES.length);
+        double typicalSpend = 10 + Math.floorMod(mix(account ^ 0x5bd1e995), 190);
+
+        int city = random.nextDouble() < LOCATION_HOP_RATE ? random.nextInt(CITIES.length) : home;
+        String currency = random.nextDouble() < FOREIGN_CURRENCY_RATE
+            ? CURRENCIES[random.nextInt(CURRENCIES.length)]
+            : CURRENCIES[home];
+        // Log-normal spend around the account's typical amount
+        double amount = typicalSpend * Math.exp(0.6 * nextGaussian());
+        if (random.nextDouble() < HIGH_VALUE_RATE) {
+            amount *= 20 + random.nextInt(30);
+        }
+
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId(account));
+        transaction.setAmount(BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP));
+        transaction.setCurrency(currency);
+        transaction.setTimestamp(new Date(timestampMillis));
+        transaction.setMerchantId("MERCHANT-" + nextMerchant());
+        transaction.setLocation(CITIES[city]);
+        transaction.setStatus(Transaction.TransactionStatus.PENDING);
+        return transaction;
+    }
+
+    static String accountId(int account) {
+        return String.format("ACC%08d", account);
+    }
+
+    private int nextAccount() {
+        if (burstRemaining > 0) {
+            burstRemaining--;
+            return burstAccount;
+        }
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int rank = Arrays.binarySearch(cumulativeWeights, target);
+        int account = rank >= 0 ? rank : Math.min(-rank - 1, cumulativeWeights.length - 1);
+        if (random.nextDouble() < BURST_RATE) {
+            burstAccount = account;
+            burstRemaining = 4 + random.nextInt(MAX_BURST - 4);
+        }
+        return account;
+    }
+
+    private int nextMerchant() {
+        // Squaring a uniform value skews towards the low, popular merchant numbers
+        double uniform = random.nextDouble();
+        return (int) (uniform * uniform * MERCHANTS);
+    }
+
+    private double nextGaussian() {
+        // Box-Muller, one value per call
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static int mix(int value) {
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.frauddetection.model;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * A {@link TransactionWindowEntry} tagged with its account, for seeding several accounts'
+ * windows from one query.
+ */
+public record AccountWindowEntry(String accountId,
+                                 Date timestamp,
+                                 String location,
+                                 String currency,
+                                 BigDecimal amount,
+                                 Transaction.TransactionStatus status) {
+
+    public TransactionWindowEntry toWindowEntry() {
+        return new TransactionWindowEntry(timestamp, location, currency, amount, status);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.frauddetection.model;
+
+public enum FraudReason {
+    BLOCKLISTED("Blocklisted account or merchant"),
+    HIGH_VALUE("High-value transaction"),
+    REPEATED_SUSPICIOUS("Multiple suspicious transactions"),
+    RAPID_SUCCESSION("Rapid successive transactions"),
+    SUSPICIOUS_LOCATION("Suspicious location change"),
+    UNUSUAL_CURRENCY("Unusual currency pattern"),
+    IMPOSSIBLE_TRAVEL("Physically implausible travel");
+
+    private final String description;
+
+    FraudReason(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.frauddetection.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of running the rule pipeline once: the decided status, the reasons that fired
+ * (in evaluation order) and each fired rule's score, i.e. how far past its threshold it was.
+ * Most rules flag a transaction for review; a rule that {@linkplain
+ * com.example.frauddetection.rules.FraudRule#rejects rejects} stops it outright.
+ * A partial verdict was reached in degraded mode, from the transaction-only rules alone,
+ * because the account's history could not be loaded in time.
+ */
+public record FraudVerdict(Transaction.TransactionStatus status,
+                           List<FraudReason> reasons,
+                           Map<FraudReason, Double> scores,
+                           boolean partial) {
+
+    private static final FraudVerdict APPROVED =
+        new FraudVerdict(Transaction.TransactionStatus.APPROVED, Collections.emptyList(), Collections.emptyMap());
+    private static final FraudVerdict PARTIALLY_APPROVED =
+        new FraudVerdict(Transaction.TransactionStatus.APPROVED, Collections.emptyList(), Collections.emptyMap(), true);
+
+    public FraudVerdict(Transaction.TransactionStatus status, List<FraudReason> reasons, Map<FraudReason, Double> scores) {
+        this(status, reasons, scores, false);
+    }
+
+    public static FraudVerdict approved() {
+        return APPROVED;
+    }
+
+    /**
+     * No transaction-only rule fired, and the account rules could not run.
+     */
+    public static FraudVerdict partiallyApproved() {
+        return PARTIALLY_APPROVED;
+    }
+
+    public static FraudVerdict flagged(FraudReason reason, double score) {
+        return new FraudVerdict(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS,
+            List.of(reason), Map.of(reason, score));
+    }
+
+    public static FraudVerdict rejected(FraudReason reason, double score) {
+        return new FraudVerdict(Transaction.TransactionStatus.REJECTED,
+            List.of(reason), Map.of(reason, score));
+    }
+
+    /**
+     * @return true if a rule fired, whether it flagged the transaction or rejected it
+     */
+    public boolean isFlagged() {
+        return status == Transaction.TransactionStatus.FLAGGED_SUSPICIOUS || isRejected();
+    }
+
+    public boolean isRejected() {
+        return status == Transaction.TransactionStatus.REJECTED;
+    }
+
+    public FraudReason primaryReason() {
+        return reasons.isEmpty() ? null : reasons.get(0);
+    }
+}
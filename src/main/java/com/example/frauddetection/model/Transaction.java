@@ -9,15 +9,28 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import java.math.BigDecimal;
 import java.util.Date;
 
 @Entity
+@Table(indexes = {
+    // Window seeding: one account's transactions since a point in time, in timestamp order
+    @Index(name = "idx_transaction_account_time", columnList = "accountId, timestamp"),
+    // Suspicious count: equality on account and status, range on timestamp
+    @Index(name = "idx_transaction_account_status_time", columnList = "accountId, status, timestamp"),
+    // Replay and warm-up: all transactions in a time range, paged by (timestamp, id)
+    @Index(name = "idx_transaction_time_id", columnList = "timestamp, id")
+})
 public class Transaction {
     public static final String SEQUENCE_NAME = "transaction_sequence";
+    public static final int SEQUENCE_ALLOCATION_SIZE = 50;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCE_NAME)
+    @SequenceGenerator(name = SEQUENCE_NAME, sequenceName = SEQUENCE_NAME, allocationSize = SEQUENCE_ALLOCATION_SIZE)
     private Long id;
     
     private String accountId;
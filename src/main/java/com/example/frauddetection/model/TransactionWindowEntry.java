@@ -0,0 +1,21 @@
+package com.example.frauddetection.model;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Read-only projection of the {@link Transaction} columns an account window is seeded from.
+ * Selected with a JPQL constructor expression, so rows are never managed entities and carry
+ * no persistence-context or dirty-checking overhead.
+ */
+public record TransactionWindowEntry(Date timestamp,
+                                     String location,
+                                     String currency,
+                                     BigDecimal amount,
+                                     Transaction.TransactionStatus status) {
+
+    public static TransactionWindowEntry of(Transaction transaction) {
+        return new TransactionWindowEntry(transaction.getTimestamp(), transaction.getLocation(),
+            transaction.getCurrency(), transaction.getAmount(), transaction.getStatus());
+    }
+}
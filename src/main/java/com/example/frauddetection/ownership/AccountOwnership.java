@@ -0,0 +1,247 @@
+package com.example.frauddetection.ownership;
+
+import com.example.frauddetection.service.FraudDetectionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which instance owns an account, so each account's profile lives and is updated on one
+ * instance only instead of being seeded and kept separately by every replica that sees it.
+ * Owners come from a {@link HashRing} over the current members, which is rebuilt when the
+ * {@link Membership} changes. Transactions of accounts owned elsewhere are forwarded to their
+ * owner; if the owner cannot be reached, the caller decides them locally, as it would without
+ * ownership. Any other failure leaves open whether the owner persisted them, so the caller fails
+ * their messages instead and the queue delivers them again, to be recognised by the owner.
+ * <p>
+ * On a rebalance this instance routes by the new ring at once, sends the profiles of accounts
+ * that moved to their new owners and drops them; a new owner that missed a handoff seeds the
+ * account from the repository as usual. On shutdown it hands every profile to the remaining
+ * members. Ownership is a routing decision rather than a lock: while members disagree about the
+ * ring, an account can briefly be decided on two instances, as it always was without ownership.
+ */
+public class AccountOwnership implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(AccountOwnership.class);
+    // Before the profile warm-up, so the ring is known before traffic starts
+    private static final int PHASE = -100;
+
+    private final String self;
+    private final Membership membership;
+    private final OwnershipTransport transport;
+    private final FraudDetectionService fraudDetectionService;
+    private final int pointsPerMember;
+    private final long refreshIntervalSeconds;
+    private final Counter forwardedCounter;
+    private final Counter forwardFailureCounter;
+    private final Counter sentCounter;
+    private final Counter receivedCounter;
+    private final Counter handoffFailureCounter;
+    private volatile HashRing ring;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+    private boolean left;
+
+    public AccountOwnership(String self,
+                            Membership membership,
+                            OwnershipTransport transport,
+                            FraudDetectionService fraudDetectionService,
+                            MeterRegistry registry,
+                            int pointsPerMember,
+                            long refreshIntervalSeconds) {
+        this.self = self;
+        this.membership = membership;
+        this.transport = transport;
+        this.fraudDetectionService = fraudDetectionService;
+        this.pointsPerMember = pointsPerMember;
+        this.refreshIntervalSeconds = refreshIntervalSeconds;
+        this.ring = new HashRing(List.of(self), pointsPerMember);
+        this.forwardedCounter = registry.counter("fraud.ownership.forwarded");
+        this.forwardFailureCounter = registry.counter("fraud.ownership.forward.failures");
+        this.sentCounter = registry.counter("fraud.ownership.handoff.profiles", "direction", "sent");
+        this.receivedCounter = registry.counter("fraud.ownership.handoff.profiles", "direction", "received");
+        this.handoffFailureCounter = registry.counter("fraud.ownership.handoff.failures");
+        registry.gauge("fraud.ownership.members", this, ownership -> ownership.ring.members().size());
+    }
+
+    @Override
+    public void start() {
+        refresh();
+        if (refreshIntervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "ownership-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        leave();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public HashRing getRing() {
+        return ring;
+    }
+
+    /**
+     * @return the member that owns the account, or null if this instance does
+     */
+    public String ownerOf(String accountId) {
+        String owner = ring.ownerOf(accountId);
+        return owner.equals(self) ? null : owner;
+    }
+
+    /**
+     * @return completed once {@code owner} has persisted the transactions
+     */
+    public CompletableFuture<Void> forward(String owner, List<ForwardedTransaction> transactions) {
+        forwardedCounter.increment(transactions.size());
+        return transport.forward(owner, transactions).whenComplete((ignored, e) -> {
+            if (e != null) {
+                forwardFailureCounter.increment(transactions.size());
+                log.warn("Failed to forward {} transactions to {}", transactions.size(), owner, e);
+            }
+        });
+    }
+
+    /**
+     * @return true if a {@link #forward} failed because the owner was never reached, so the
+     *         transactions can be decided here without risking that the owner persisted them too
+     */
+    public static boolean unreachable(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        return cause instanceof MemberUnreachableException;
+    }
+
+    /**
+     * Drops the account's profile unless this instance owns it, after a transaction of it was
+     * decided here because forwarding failed. Otherwise the profile would stay behind without
+     * the owner's later transactions, and be used as it is if this instance owned the account
+     * again, since profiles are only seeded when missing.
+     */
+    public void release(String accountId) {
+        if (!ring.ownerOf(accountId).equals(self)) {
+            fraudDetectionService.removeProfile(accountId);
+        }
+    }
+
+    /**
+     * Drops the profiles of every account owned by another member, for example after a snapshot
+     * written under another ring was restored.
+     *
+     * @return the number of profiles dropped
+     */
+    public long dropUnowned() {
+        HashRing current = ring;
+        if (current.members().size() == 1 && current.members().get(0).equals(self)) {
+            return 0;
+        }
+        return fraudDetectionService.removeProfiles(key -> !current.ownerOfKey(key).equals(self));
+    }
+
+    /**
+     * Imports profiles handed off by another member.
+     *
+     * @return the number of profiles imported
+     */
+    public long receive(InputStream profiles) throws IOException {
+        long imported = fraudDetectionService.importProfiles(profiles);
+        receivedCounter.increment(imported);
+        return imported;
+    }
+
+    /**
+     * Rebuilds the ring if the members changed since the last refresh, and hands off the
+     * profiles of accounts that moved.
+     *
+     * @return true if the ring changed
+     */
+    public synchronized boolean refresh() {
+        if (left) {
+            return false;
+        }
+        TreeSet<String> members;
+        try {
+            members = new TreeSet<>(membership.currentMembers());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not list members, keeping the current ring of {}", ring.members().size(), e);
+            return false;
+        }
+        members.add(self);
+        if (members.equals(new TreeSet<>(ring.members()))) {
+            return false;
+        }
+        rebalance(new HashRing(members, pointsPerMember));
+        return true;
+    }
+
+    /**
+     * Hands every profile to the other members and routes everything to them from now on.
+     */
+    public synchronized void leave() {
+        left = true;
+        TreeSet<String> others = new TreeSet<>(ring.members());
+        others.remove(self);
+        if (!others.isEmpty()) {
+            rebalance(new HashRing(others, pointsPerMember));
+        }
+    }
+
+    private void rebalance(HashRing next) {
+        List<String> previous = ring.members();
+        // Route by the new ring first, so moved accounts stop changing here before they are exported
+        ring = next;
+        long sent = 0;
+        for (String member : next.members()) {
+            if (member.equals(self)) {
+                continue;
+            }
+            try {
+                long[] written = new long[1];
+                transport.handoff(member, out -> written[0] = fraudDetectionService.exportProfiles(out, key -> next.ownerOfKey(key).equals(member)));
+                sent += written[0];
+            } catch (IOException | RuntimeException e) {
+                handoffFailureCounter.increment();
+                log.warn("Failed to hand off profiles to {}, it will seed them from the repository", member, e);
+            }
+        }
+        sentCounter.increment(sent);
+        long removed = fraudDetectionService.removeProfiles(key -> !next.ownerOfKey(key).equals(self));
+        log.info("Account ownership moved from {} to {} members: handed off {} profiles, dropped {}",
+            previous.size(), next.members().size(), sent, removed);
+    }
+}
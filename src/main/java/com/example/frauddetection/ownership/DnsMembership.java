@@ -0,0 +1,36 @@
+package com.example.frauddetection.ownership;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Members from the addresses a DNS name resolves to, such as a Kubernetes headless service, which
+ * lists the ready pods behind it. Lookups go through the JVM's address cache, so a pod that joins
+ * or leaves is seen within the cache TTL plus one refresh interval.
+ */
+public class DnsMembership implements Membership {
+    private final String hostName;
+    private final int port;
+
+    public DnsMembership(String hostName, int port) {
+        this.hostName = hostName;
+        this.port = port;
+    }
+
+    @Override
+    public List<String> currentMembers() throws IOException {
+        InetAddress[] addresses = InetAddress.getAllByName(hostName);
+        List<String> members = new ArrayList<>(addresses.length);
+        for (InetAddress address : addresses) {
+            members.add(memberUrl(address.getHostAddress(), port));
+        }
+        return members;
+    }
+
+    public static String memberUrl(String hostAddress, int port) {
+        String host = hostAddress.indexOf(':') >= 0 ? "[" + hostAddress + "]" : hostAddress;
+        return "http://" + host + ":" + port;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.frauddetection.ownership;
+
+import com.example.frauddetection.model.Transaction;
+
+/**
+ * A transaction forwarded to its owner, with the id of the message it arrived in. The owner
+ * remembers the ids it persisted, so a message forwarded again after an answer was lost is not
+ * persisted, or added to its account's profile, a second time.
+ *
+ * @param messageId null if the transaction did not arrive in a message, which the owner then
+ *                  cannot recognise again
+ */
+public record ForwardedTransaction(String messageId, Transaction transaction) {
+}
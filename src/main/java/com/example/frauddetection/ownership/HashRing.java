@@ -0,0 +1,70 @@
+package com.example.frauddetection.ownership;
+
+import com.example.frauddetection.service.AccountProfileStore;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Consistent-hash ring that assigns every account to one member. Each member is placed on the
+ * ring at {@code pointsPerMember} points, and an account belongs to the member of the first point
+ * at or after its key, wrapping around. Adding or removing a member only moves the accounts
+ * between its points and their predecessors, about {@code 1/members} of them.
+ * <p>
+ * Accounts are placed by {@link AccountProfileStore#keyOf}, the key their profile is stored
+ * under, so the profiles that move can be selected by key. Rings built from the same members
+ * agree on every owner, whichever instance builds them. Instances are immutable.
+ */
+public final class HashRing {
+    private final List<String> members;
+    private final long[] points;
+    private final String[] owners;
+
+    public HashRing(Collection<String> members, int pointsPerMember) {
+        if (members.isEmpty() || pointsPerMember < 1) {
+            throw new IllegalArgumentException("A ring needs at least one member and one point per member");
+        }
+        this.members = List.copyOf(new TreeSet<>(members));
+        int size = this.members.size() * pointsPerMember;
+        long[] keys = new long[size];
+        int[] memberOf = new int[size];
+        Integer[] order = new Integer[size];
+        for (int m = 0; m < this.members.size(); m++) {
+            for (int p = 0; p < pointsPerMember; p++) {
+                int i = m * pointsPerMember + p;
+                keys[i] = AccountProfileStore.keyOf(this.members.get(m) + "#" + p);
+                memberOf[i] = m;
+                order[i] = i;
+            }
+        }
+        // Signed order, as in ownerOfKey; ties go to the member that sorts first
+        Arrays.sort(order, (a, b) -> keys[a] != keys[b] ? Long.compare(keys[a], keys[b]) : Integer.compare(memberOf[a], memberOf[b]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = keys[order[i]];
+            owners[i] = this.members.get(memberOf[order[i]]);
+        }
+    }
+
+    public String ownerOf(String accountId) {
+        return ownerOfKey(AccountProfileStore.keyOf(accountId));
+    }
+
+    public String ownerOfKey(long key) {
+        int index = Arrays.binarySearch(points, key);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * @return the members in sorted order
+     */
+    public List<String> members() {
+        return members;
+    }
+}
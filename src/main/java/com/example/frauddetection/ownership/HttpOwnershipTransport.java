@@ -0,0 +1,104 @@
+package com.example.frauddetection.ownership;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Talks to the {@code /internal} endpoints of other members over HTTP. Transactions are posted
+ * as the same JSON as the SQS messages, each with its message id; profiles are spooled to a
+ * temporary file first, so a large handoff is neither held on the heap nor limited by how fast
+ * the member reads it. Every request carries the shared secret members use to recognise each
+ * other.
+ */
+public class HttpOwnershipTransport implements OwnershipTransport {
+    public static final String SECRET_HEADER = "X-Fraud-Ownership-Secret";
+    static final String TRANSACTIONS_PATH = "/internal/transactions";
+    static final String PROFILES_PATH = "/internal/profiles";
+    private static final Duration HANDOFF_TIMEOUT = Duration.ofMinutes(2);
+
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final String secret;
+    private final HttpClient httpClient;
+
+    public HttpOwnershipTransport(ObjectMapper objectMapper, Duration timeout, String secret) {
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.secret = secret;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public CompletableFuture<Void> forward(String member, List<ForwardedTransaction> transactions) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(transactions);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        URI uri = URI.create(member + TRANSACTIONS_PATH);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .header(SECRET_HEADER, secret)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .handle((response, e) -> {
+                if (e != null) {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    // Only a failed connect proves the request never left; a timeout may come after the member persisted
+                    if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+                        throw new CompletionException(new MemberUnreachableException("Could not connect to member " + member, cause));
+                    }
+                    throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+                }
+                if (response.statusCode() >= 300) {
+                    throw new IllegalStateException("Member " + member + " responded with " + response.statusCode());
+                }
+                return null;
+            });
+    }
+
+    @Override
+    public void handoff(String member, ProfileWriter profiles) throws IOException {
+        Path spool = Files.createTempFile("profile-handoff", ".bin");
+        try {
+            try (OutputStream out = Files.newOutputStream(spool)) {
+                profiles.writeTo(out);
+            }
+            URI uri = URI.create(member + PROFILES_PATH);
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(HANDOFF_TIMEOUT)
+                .header("Content-Type", "application/octet-stream")
+                .header(SECRET_HEADER, secret)
+                .POST(HttpRequest.BodyPublishers.ofFile(spool))
+                .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                throw new IOException("Member " + member + " responded with " + response.statusCode());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while handing off profiles to " + member);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+}
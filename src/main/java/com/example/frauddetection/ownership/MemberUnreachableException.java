@@ -0,0 +1,14 @@
+package com.example.frauddetection.ownership;
+
+import java.io.IOException;
+
+/**
+ * A member could not be reached at all, so it cannot have received, let alone persisted,
+ * anything sent to it.
+ */
+public class MemberUnreachableException extends IOException {
+
+    public MemberUnreachableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.frauddetection.ownership;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Source of the instances that currently share the accounts. A member is the base URL other
+ * instances reach it at, such as {@code http://10.0.3.17:8080}.
+ */
+public interface Membership {
+
+    /**
+     * @return the live members, in any order; this instance may or may not be among them
+     */
+    List<String> currentMembers() throws IOException;
+}
@@ -0,0 +1,31 @@
+package com.example.frauddetection.ownership;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Carries transactions and account profiles to another member.
+ */
+public interface OwnershipTransport {
+
+    /**
+     * Has {@code member} decide and persist {@code transactions}, without forwarding them again.
+     *
+     * @return completed once the member has persisted them; failed with a
+     *         {@link MemberUnreachableException} if the member was never reached, while any other
+     *         failure leaves open whether it persisted them
+     */
+    CompletableFuture<Void> forward(String member, List<ForwardedTransaction> transactions);
+
+    /**
+     * Sends the profiles {@code profiles} writes to {@code member}, which imports them.
+     */
+    void handoff(String member, ProfileWriter profiles) throws IOException;
+
+    @FunctionalInterface
+    interface ProfileWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.frauddetection.ownership;
+
+import java.util.List;
+
+/**
+ * A fixed member list, {@code fraud.ownership.members}, for running several instances on one
+ * host or anywhere without service discovery.
+ */
+public class StaticMembership implements Membership {
+    private final List<String> members;
+
+    public StaticMembership(List<String> members) {
+        this.members = List.copyOf(members);
+    }
+
+    @Override
+    public List<String> currentMembers() {
+        return members;
+    }
+}
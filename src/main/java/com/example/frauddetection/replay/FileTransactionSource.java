@@ -0,0 +1,113 @@
+package com.example.frauddetection.replay;
+
+import com.example.frauddetection.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads transactions from a local file, one per line. A {@code .csv} file starts with a header
+ * naming {@link Transaction} properties (for example
+ * {@code accountId,amount,currency,timestamp,merchantId,location}) and has no quoted fields;
+ * any other file holds one transaction per line in the JSON the SQS consumer receives.
+ * Timestamps in CSV are epoch milliseconds or ISO-8601 instants. Blank lines are skipped.
+ */
+public class FileTransactionSource implements TransactionSource {
+    private final Path file;
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Integer> columns;
+    private long lineNumber;
+
+    public FileTransactionSource(Path file, ObjectMapper objectMapper) throws IOException {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        if (file.getFileName().toString().toLowerCase().endsWith(".csv")) {
+            String header = reader.readLine();
+            lineNumber++;
+            if (header == null) {
+                throw new IllegalArgumentException(file + " has no CSV header");
+            }
+            columns = new HashMap<>();
+            String[] names = header.split(",", -1);
+            for (int i = 0; i < names.length; i++) {
+                columns.put(names[i].strip(), i);
+            }
+        } else {
+            columns = null;
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if a line cannot be parsed, naming the line
+     */
+    @Override
+    public Transaction next() throws IOException {
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                return columns != null ? parseCsv(line) : objectMapper.readValue(line, Transaction.class);
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalArgumentException(file + " line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String describe() {
+        return file.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Transaction parseCsv(String line) {
+        String[] fields = line.split(",", -1);
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(field(fields, "accountId"));
+        transaction.setCurrency(field(fields, "currency"));
+        transaction.setMerchantId(field(fields, "merchantId"));
+        transaction.setLocation(field(fields, "location"));
+        transaction.setPreviousLocation(field(fields, "previousLocation"));
+        transaction.setPreviousCurrency(field(fields, "previousCurrency"));
+        String amount = field(fields, "amount");
+        if (amount != null) {
+            transaction.setAmount(new BigDecimal(amount));
+        }
+        String timestamp = field(fields, "timestamp");
+        if (timestamp != null) {
+            boolean epochMillis = timestamp.chars().allMatch(Character::isDigit);
+            transaction.setTimestamp(epochMillis ? new Date(Long.parseLong(timestamp)) : Date.from(Instant.parse(timestamp)));
+        }
+        String status = field(fields, "status");
+        if (status != null) {
+            transaction.setStatus(Transaction.TransactionStatus.valueOf(status));
+        }
+        return transaction;
+    }
+
+    private String field(String[] fields, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.length) {
+            return null;
+        }
+        String value = fields[index].strip();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.frauddetection.replay;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.rules.FraudRule;
+import com.example.frauddetection.rules.RuleThresholds;
+import com.example.frauddetection.rules.ThresholdConfig;
+import com.example.frauddetection.rules.TransactionCodes;
+import com.example.frauddetection.service.AccountPartitionedExecutor;
+import com.example.frauddetection.service.AccountProfileStore;
+import com.example.frauddetection.service.FraudDetectionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs historical transactions through the production rule pipeline, on a detection service of its
+ * own whose account profiles start empty and fill up from the replayed transactions alone. The
+ * source is read on the calling thread; transactions are evaluated on account lanes, in source
+ * order per account and in parallel across accounts, exactly like the consumers do.
+ * <p>
+ * Only source order is replayed: rule windows follow the transaction timestamps, not the wall
+ * clock, so a day of history replays as fast as the rules allow. Transactions without an account
+ * or timestamp are skipped.
+ */
+public class ReplayEngine {
+    private static final int LANES_PER_THREAD = 8;
+    private static final int MAX_IN_FLIGHT_PER_THREAD = 1024;
+
+    private final List<FraudRule> rules;
+    private final TransactionCodes transactionCodes;
+    private final RuleThresholds baseThresholds;
+    private final int profileCapacity;
+    private final int parallelism;
+
+    /**
+     * @param transactionCodes the codes the rules were built with, so location-based rules still match
+     * @param baseThresholds   thresholds that overrides given to {@link #run} apply to
+     */
+    public ReplayEngine(List<FraudRule> rules, TransactionCodes transactionCodes, RuleThresholds baseThresholds,
+                        int profileCapacity, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, was " + parallelism);
+        }
+        this.rules = rules;
+        this.transactionCodes = transactionCodes;
+        this.baseThresholds = baseThresholds;
+        this.profileCapacity = profileCapacity;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Replays every transaction of {@code source} with {@code overrides} in effect.
+     *
+     * @throws IllegalArgumentException if {@code overrides} holds a negative threshold
+     * @throws IllegalStateException    if evaluating a transaction failed
+     */
+    public ReplayReport run(TransactionSource source, ThresholdConfig overrides) throws IOException, InterruptedException {
+        FraudDetectionService detectionService = new FraudDetectionService(rules, new AccountProfileStore(profileCapacity),
+            transactionCodes, baseThresholds, new SimpleMeterRegistry());
+        detectionService.updateThresholds(overrides);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "replay-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AccountPartitionedExecutor lanes = new AccountPartitionedExecutor(threads, parallelism * LANES_PER_THREAD);
+        int maxInFlight = parallelism * MAX_IN_FLIGHT_PER_THREAD;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Tally tally = new Tally();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        long skipped = 0;
+        long outOfOrder = 0;
+        long latestMillis = Long.MIN_VALUE;
+
+        long startNanos = System.nanoTime();
+        try {
+            for (Transaction transaction = source.next(); transaction != null && failure.get() == null; transaction = source.next()) {
+                if (transaction.getAccountId() == null || transaction.getTimestamp() == null) {
+                    skipped++;
+                    continue;
+                }
+                long timestampMillis = transaction.getTimestamp().getTime();
+                if (timestampMillis < latestMillis) {
+                    outOfOrder++;
+                }
+                latestMillis = Math.max(latestMillis, timestampMillis);
+                inFlight.acquire();
+                Transaction replayed = transaction;
+                lanes.execute(transaction.getAccountId(), () -> {
+                    try {
+                        tally.record(replayed.getStatus(), detectionService.evaluateTransaction(replayed));
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            // Every permit back means every submitted transaction has been evaluated
+            inFlight.acquire(maxInFlight);
+        } finally {
+            threads.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Replay of " + source.describe() + " failed", failure.get());
+        }
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        return tally.report(source.describe(), skipped, outOfOrder, elapsedMillis);
+    }
+
+    private static final class Tally {
+        private final LongAdder transactions = new LongAdder();
+        private final LongAdder flagged = new LongAdder();
+        private final LongAdder newlyFlagged = new LongAdder();
+        private final LongAdder noLongerFlagged = new LongAdder();
+        private final AtomicLongArray byReason = new AtomicLongArray(FraudReason.values().length);
+
+        void record(Transaction.TransactionStatus recorded, FraudVerdict verdict) {
+            transactions.increment();
+            if (verdict.isFlagged()) {
+                flagged.increment();
+                byReason.incrementAndGet(verdict.primaryReason().ordinal());
+            }
+            if (recorded != null && recorded != Transaction.TransactionStatus.PENDING) {
+                boolean wasFlagged = recorded == Transaction.TransactionStatus.FLAGGED_SUSPICIOUS
+                    || recorded == Transaction.TransactionStatus.REJECTED;
+                if (verdict.isFlagged() && !wasFlagged) {
+                    newlyFlagged.increment();
+                } else if (!verdict.isFlagged() && wasFlagged) {
+                    noLongerFlagged.increment();
+                }
+            }
+        }
+
+        ReplayReport report(String source, long skipped, long outOfOrder, long elapsedMillis) {
+            Map<FraudReason, Long> flaggedByReason = new EnumMap<>(FraudReason.class);
+            for (FraudReason reason : FraudReason.values()) {
+                long count = byReason.get(reason.ordinal());
+                if (count > 0) {
+                    flaggedByReason.put(reason, count);
+                }
+            }
+            return new ReplayReport(source, transactions.sum(), skipped, outOfOrder, flagged.sum(), flaggedByReason,
+                newlyFlagged.sum(), noLongerFlagged.sum(), elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.frauddetection.replay;
+
+import com.example.frauddetection.model.FraudReason;
+
+import java.util.Map;
+
+/**
+ * Outcome of one replay. Rules short-circuit, so {@code flaggedByReason} counts each flagged
+ * transaction once, under the cheapest rule that fired. {@code newlyFlagged} and
+ * {@code noLongerFlagged} compare with the status stored with each transaction, when it has one.
+ */
+public record ReplayReport(String source,
+                           long transactions,
+                           long skipped,
+                           long outOfOrder,
+                           long flagged,
+                           Map<FraudReason, Long> flaggedByReason,
+                           long newlyFlagged,
+                           long noLongerFlagged,
+                           long elapsedMillis) {
+
+    public double getFlagRate() {
+        return transactions == 0 ? 0 : (double) flagged / transactions;
+    }
+
+    public double getTransactionsPerSecond() {
+        return elapsedMillis == 0 ? 0 : transactions * 1000.0 / elapsedMillis;
+    }
+
+    public double flagRate(FraudReason reason) {
+        return transactions == 0 ? 0 : (double) flaggedByReason.getOrDefault(reason, 0L) / transactions;
+    }
+
+    /**
+     * @return a multi-line summary for the log
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder()
+            .append(String.format("Replayed %d transactions from %s in %d ms (%.0f/s), %d skipped, %d out of order%n",
+                transactions, source, elapsedMillis, getTransactionsPerSecond(), skipped, outOfOrder))
+            .append(String.format("Flagged %d (%.3f%%), %d newly flagged, %d no longer flagged",
+                flagged, 100 * getFlagRate(), newlyFlagged, noLongerFlagged));
+        for (Map.Entry<FraudReason, Long> entry : flaggedByReason.entrySet()) {
+            summary.append(String.format("%n  %-20s %10d  %.3f%%", entry.getKey(), entry.getValue(), 100 * flagRate(entry.getKey())));
+        }
+        return summary.toString();
+    }
+}
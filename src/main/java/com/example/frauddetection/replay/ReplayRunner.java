@@ -0,0 +1,113 @@
+package com.example.frauddetection.replay;
+
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.rules.FraudRule;
+import com.example.frauddetection.rules.ThresholdConfig;
+import com.example.frauddetection.rules.TransactionCodes;
+import com.example.frauddetection.service.FraudDetectionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Offline replay mode, enabled by setting {@code fraud.replay.source} (usually together with the
+ * {@code replay} profile): replays the source once with the thresholds file applied, logs the
+ * report, optionally writes it as JSON, and exits. The source is {@code database}, for the
+ * stored transactions between {@code fraud.replay.from} and {@code fraud.replay.to}, or the path
+ * of an NDJSON or CSV file, see {@link FileTransactionSource}.
+ */
+@Component
+@ConditionalOnProperty(name = "fraud.replay.source")
+public class ReplayRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(ReplayRunner.class);
+    private static final String DATABASE_SOURCE = "database";
+
+    private final ApplicationContext context;
+    private final TransactionRepository transactionRepository;
+    private final FraudDetectionService fraudDetectionService;
+    private final List<FraudRule> rules;
+    private final TransactionCodes transactionCodes;
+    private final ObjectMapper objectMapper;
+
+    @Value("${fraud.replay.source}")
+    private String source;
+
+    @Value("${fraud.replay.from:}")
+    private String from;
+
+    @Value("${fraud.replay.to:}")
+    private String to;
+
+    @Value("${fraud.replay.thresholds-file:}")
+    private String thresholdsFile;
+
+    @Value("${fraud.replay.report-file:}")
+    private String reportFile;
+
+    @Value("${fraud.replay.parallelism:4}")
+    private int parallelism;
+
+    @Value("${fraud.replay.page-size:5000}")
+    private int pageSize;
+
+    @Value("${fraud.replay.profiles-capacity:2097152}")
+    private int profileCapacity;
+
+    public ReplayRunner(ApplicationContext context,
+                        TransactionRepository transactionRepository,
+                        FraudDetectionService fraudDetectionService,
+                        List<FraudRule> rules,
+                        TransactionCodes transactionCodes,
+                        ObjectMapper objectMapper) {
+        this.context = context;
+        this.transactionRepository = transactionRepository;
+        this.fraudDetectionService = fraudDetectionService;
+        this.rules = rules;
+        this.transactionCodes = transactionCodes;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ThresholdConfig overrides = thresholdsFile.isBlank()
+            ? ThresholdConfig.EMPTY
+            : objectMapper.readValue(Files.readAllBytes(Path.of(thresholdsFile)), ThresholdConfig.class);
+        ReplayEngine engine = new ReplayEngine(rules, transactionCodes, fraudDetectionService.getBaseThresholds(),
+            profileCapacity, parallelism);
+        ReplayReport report;
+        try (TransactionSource transactions = openSource()) {
+            log.info("Replaying {} with {} threads", transactions.describe(), parallelism);
+            report = engine.run(transactions, overrides);
+        }
+        log.info("{}", report.summary());
+        if (!reportFile.isBlank()) {
+            Files.write(Path.of(reportFile), objectMapper.writeValueAsBytes(report));
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private TransactionSource openSource() throws IOException {
+        if (!DATABASE_SOURCE.equals(source)) {
+            return new FileTransactionSource(Path.of(source), objectMapper);
+        }
+        if (from.isBlank() || to.isBlank()) {
+            throw new IllegalArgumentException("Replaying the database needs fraud.replay.from and fraud.replay.to");
+        }
+        return new RepositoryTransactionSource(transactionRepository, Date.from(Instant.parse(from)),
+            Date.from(Instant.parse(to)), pageSize);
+    }
+}
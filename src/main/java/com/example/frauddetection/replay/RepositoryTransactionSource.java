@@ -0,0 +1,64 @@
+package com.example.frauddetection.replay;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Streams the stored transactions of a time range in pages, each page continuing after the last
+ * row of the previous one, so only one page is in memory at a time.
+ */
+public class RepositoryTransactionSource implements TransactionSource {
+    private final TransactionRepository transactionRepository;
+    private final Date from;
+    private final Date to;
+    private final int pageSize;
+    private Date afterTime;
+    private long afterId = Long.MIN_VALUE;
+    private Iterator<Transaction> page = List.<Transaction>of().iterator();
+    private boolean exhausted;
+
+    /**
+     * @param from inclusive start of the range
+     * @param to   exclusive end of the range
+     */
+    public RepositoryTransactionSource(TransactionRepository transactionRepository, Date from, Date to, int pageSize) {
+        this.transactionRepository = transactionRepository;
+        this.from = from;
+        this.to = to;
+        this.pageSize = pageSize;
+        // Strictly after (from - 1 ms) is the same as from onwards
+        this.afterTime = new Date(from.getTime() - 1);
+    }
+
+    @Override
+    public Transaction next() {
+        if (!page.hasNext() && !exhausted) {
+            List<Transaction> rows = transactionRepository.findPageInTimeOrder(afterTime, afterId, to, PageRequest.of(0, pageSize));
+            exhausted = rows.size() < pageSize;
+            page = rows.iterator();
+        }
+        if (!page.hasNext()) {
+            return null;
+        }
+        Transaction transaction = page.next();
+        afterTime = transaction.getTimestamp();
+        afterId = transaction.getId();
+        return transaction;
+    }
+
+    @Override
+    public String describe() {
+        return "database " + from.toInstant() + " to " + to.toInstant();
+    }
+
+    @Override
+    public void close() {
+        page = List.<Transaction>of().iterator();
+        exhausted = true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.frauddetection.replay;
+
+import com.example.frauddetection.model.Transaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Historical transactions for a replay, expected in timestamp order.
+ */
+public interface TransactionSource extends Closeable {
+
+    /**
+     * @return the next transaction, or null at the end
+     */
+    Transaction next() throws IOException;
+
+    /**
+     * @return where the transactions come from, for logs and reports
+     */
+    String describe();
+}
@@ -1,15 +1,29 @@
 package com.example.frauddetection.repository;
 
+import com.example.frauddetection.model.AccountWindowEntry;
 import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.model.TransactionWindowEntry;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+    /**
+     * Bounds the queries decisions wait on, so a stalled database frees their connections and
+     * trips the circuit breaker. Warm-up, replay and inserts are not bounded.
+     */
+    String DECISION_QUERY_TIMEOUT_MILLIS = "2000";
+    String QUERY_TIMEOUT_HINT = "jakarta.persistence.query.timeout";
+    String WINDOW_ENTRIES_BY_ACCOUNTS_QUERY = "SELECT new com.example.frauddetection.model.AccountWindowEntry(t.accountId, t.timestamp, t.location, t.currency, t.amount, t.status) "
+        + "FROM Transaction t WHERE t.accountId IN :accountIds AND t.timestamp >= :startTime ORDER BY t.accountId, t.timestamp";
     
     @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId AND t.timestamp >= :startTime")
     List<Transaction> findRecentTransactionsByAccount(
@@ -17,13 +31,64 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
         @Param("startTime") Date startTime
     );
     
+    @Query("SELECT new com.example.frauddetection.model.TransactionWindowEntry(t.timestamp, t.location, t.currency, t.amount, t.status) "
+        + "FROM Transaction t WHERE t.accountId = :accountId AND t.timestamp >= :startTime ORDER BY t.timestamp")
+    @QueryHints(@QueryHint(name = QUERY_TIMEOUT_HINT, value = DECISION_QUERY_TIMEOUT_MILLIS))
+    List<TransactionWindowEntry> findRecentWindowEntriesByAccount(
+        @Param("accountId") String accountId,
+        @Param("startTime") Date startTime
+    );
+    
+    /**
+     * Window entries of several accounts in one round-trip, grouped by account and in timestamp
+     * order within each. The entries include every flagged transaction of the window, so they
+     * also give each account's suspicious count.
+     */
+    @Query(WINDOW_ENTRIES_BY_ACCOUNTS_QUERY)
+    @QueryHints(@QueryHint(name = QUERY_TIMEOUT_HINT, value = DECISION_QUERY_TIMEOUT_MILLIS))
+    List<AccountWindowEntry> findRecentWindowEntriesByAccounts(
+        @Param("accountIds") Collection<String> accountIds,
+        @Param("startTime") Date startTime
+    );
+    
+    /**
+     * {@link #findRecentWindowEntriesByAccounts} without the decision timeout, for the warm-up
+     * before traffic starts, which may wait far longer than a decision.
+     */
+    @Query(WINDOW_ENTRIES_BY_ACCOUNTS_QUERY)
+    List<AccountWindowEntry> findRecentWindowEntriesByAccountsForWarmUp(
+        @Param("accountIds") Collection<String> accountIds,
+        @Param("startTime") Date startTime
+    );
+    
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.accountId = :accountId AND t.status = :status AND t.timestamp >= :startTime")
+    @QueryHints(@QueryHint(name = QUERY_TIMEOUT_HINT, value = DECISION_QUERY_TIMEOUT_MILLIS))
     long countRecentSuspiciousTransactions(
         @Param("accountId") String accountId,
         @Param("startTime") Date startTime,
         @Param("status") Transaction.TransactionStatus status
     );
     
+    @Query("SELECT t.accountId FROM Transaction t WHERE t.timestamp >= :startTime GROUP BY t.accountId ORDER BY COUNT(t) DESC")
+    List<String> findMostActiveAccounts(
+        @Param("startTime") Date startTime,
+        Pageable pageable
+    );
+    
+    /**
+     * One page of the transactions before {@code endTime} that come after the given timestamp and
+     * id, in timestamp then id order. Paging by the last row seen keeps every page an index range
+     * scan, however deep into the history.
+     */
+    @Query("SELECT t FROM Transaction t WHERE t.timestamp < :endTime "
+        + "AND (t.timestamp > :afterTime OR (t.timestamp = :afterTime AND t.id > :afterId)) ORDER BY t.timestamp, t.id")
+    List<Transaction> findPageInTimeOrder(
+        @Param("afterTime") Date afterTime,
+        @Param("afterId") long afterId,
+        @Param("endTime") Date endTime,
+        Pageable pageable
+    );
+    
     List<Transaction> findByAccountIdAndAmountGreaterThan(
         String accountId,
         BigDecimal amount
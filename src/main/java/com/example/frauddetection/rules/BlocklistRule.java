@@ -0,0 +1,53 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudReason;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rejects transactions from blocked accounts or to blocked merchants before any other rule runs,
+ * without touching account state or the repository; their status is
+ * {@link com.example.frauddetection.model.Transaction.TransactionStatus#REJECTED}. The {@link Blocklist} is swapped as a whole
+ * by {@link #update}; evaluations in flight keep the one they started with.
+ */
+@Component
+public class BlocklistRule implements FraudRule {
+    private volatile Blocklist blocklist = Blocklist.EMPTY;
+
+    @Override
+    public FraudReason reason() {
+        return FraudReason.BLOCKLISTED;
+    }
+
+    @Override
+    public RuleInput input() {
+        return RuleInput.TRANSACTION;
+    }
+
+    @Override
+    public int cost() {
+        return 0;
+    }
+
+    @Override
+    public boolean rejects() {
+        return true;
+    }
+
+    @Override
+    public double evaluate(RuleContext context) {
+        Blocklist current = blocklist;
+        if (current.containsAccount(context.getCompact().getAccountId())
+            || current.containsMerchant(context.getTransaction().getMerchantId())) {
+            return 1.0;
+        }
+        return NOT_FIRED;
+    }
+
+    public void update(Blocklist blocklist) {
+        this.blocklist = blocklist;
+    }
+
+    public Blocklist getBlocklist() {
+        return blocklist;
+    }
+}
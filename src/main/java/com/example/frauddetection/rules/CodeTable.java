@@ -0,0 +1,75 @@
+package com.example.frauddetection.rules;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Interns strings such as currencies, locations and merchant ids into dense int codes so rules
+ * can compare them without {@code equals}. Looking up a known value does not allocate.
+ * <p>
+ * Values come from transactions, so the table holds at most {@code capacity} of them; once it is
+ * full, every new value gets {@link #OVERFLOW}, which matches no configured value and never
+ * counts as a location or currency the account used before.
+ */
+public class CodeTable {
+    public static final int NONE = 0;
+    public static final int OVERFLOW = -1;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final AtomicInteger lastCode = new AtomicInteger(NONE);
+    private final LongAdder overflows = new LongAdder();
+    private final int capacity;
+
+    public CodeTable(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int codeOf(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        code = codes.computeIfAbsent(value, v -> {
+            int previous = lastCode.getAndUpdate(last -> last < capacity ? last + 1 : last);
+            return previous < capacity ? previous + 1 : null;
+        });
+        if (code == null) {
+            overflows.increment();
+            return OVERFLOW;
+        }
+        return code;
+    }
+
+    /**
+     * Like {@link #codeOf}, but never adds the value, for tables only configuration fills.
+     *
+     * @return the value's code, or {@link #NONE} if it has none
+     */
+    public int find(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : NONE;
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    /**
+     * @return lookups of new values that got {@link #OVERFLOW} because the table was full
+     */
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    public void forEach(ObjIntConsumer<String> action) {
+        codes.forEach(action::accept);
+    }
+}
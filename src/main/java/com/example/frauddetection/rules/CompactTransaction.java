@@ -0,0 +1,101 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.model.TransactionWindowEntry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Primitive view of a {@link Transaction} for the rule engine: amount in minor units (hundredths),
+ * timestamp in epoch millis and interned codes instead of strings. Instances are reused, so
+ * converting a transaction is the only allocating step on the hot path.
+ */
+public class CompactTransaction {
+    public static final int MINOR_UNIT_SCALE = 2;
+    public static final long NO_AMOUNT = Long.MIN_VALUE;
+    // Integer digits of an amount that always fit a long in minor units
+    private static final int MAX_INTEGER_DIGITS = 16;
+
+    private String accountId;
+    private long amountMinor;
+    private long timestampMillis;
+    private int currency;
+    private int location;
+    private int merchant;
+
+    public CompactTransaction load(Transaction transaction, long timestampMillis, TransactionCodes codes) {
+        this.accountId = transaction.getAccountId();
+        this.amountMinor = toMinorUnits(transaction.getAmount());
+        this.timestampMillis = timestampMillis;
+        this.currency = codes.currencies().codeOf(transaction.getCurrency());
+        this.location = codes.locations().codeOf(transaction.getLocation());
+        this.merchant = codes.merchants().find(transaction.getMerchantId());
+        return this;
+    }
+
+    public CompactTransaction load(TransactionWindowEntry entry, TransactionCodes codes) {
+        this.accountId = null;
+        this.amountMinor = toMinorUnits(entry.amount());
+        this.timestampMillis = entry.timestamp().getTime();
+        this.currency = codes.currencies().codeOf(entry.currency());
+        this.location = codes.locations().codeOf(entry.location());
+        this.merchant = CodeTable.NONE;
+        return this;
+    }
+
+    /**
+     * Rounds up to whole minor units, so an amount above a threshold stays above it: 1000.004
+     * becomes 1000.01 and still exceeds a threshold of 1000. Thresholds have at most two decimals
+     * and convert exactly. Amounts too large for a long saturate, so every amount rule fires on them.
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        if (amount == null) {
+            return NO_AMOUNT;
+        }
+        // Decided from the digit counts, so an extreme exponent is never expanded
+        int integerDigits = amount.precision() - amount.scale();
+        if (integerDigits > MAX_INTEGER_DIGITS) {
+            return saturated(amount);
+        }
+        if (integerDigits < -MINOR_UNIT_SCALE) {
+            return amount.signum() > 0 ? 1 : 0;
+        }
+        return amount.setScale(MINOR_UNIT_SCALE, RoundingMode.CEILING).unscaledValue().longValueExact();
+    }
+
+    private static long saturated(BigDecimal amount) {
+        return amount.signum() > 0 ? Long.MAX_VALUE : NO_AMOUNT + 1;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public boolean hasAmount() {
+        return amountMinor != NO_AMOUNT;
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public int getCurrency() {
+        return currency;
+    }
+
+    public int getLocation() {
+        return location;
+    }
+
+    /**
+     * @return the merchant's code if it has a threshold override, otherwise {@link CodeTable#NONE}
+     */
+    public int getMerchant() {
+        return merchant;
+    }
+}
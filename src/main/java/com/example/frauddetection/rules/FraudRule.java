@@ -0,0 +1,35 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudReason;
+
+/**
+ * A single fraud check. Rules are compiled into a {@link RulePipeline}, which orders them by
+ * their declared input and cost and stops at the first rule that fires.
+ */
+public interface FraudRule {
+
+    double NOT_FIRED = 0.0;
+
+    FraudReason reason();
+
+    RuleInput input();
+
+    /**
+     * Relative evaluation cost; cheaper rules run first within the same input.
+     */
+    int cost();
+
+    /**
+     * @return true if a transaction this rule fires on is rejected outright rather than flagged
+     *         for review
+     */
+    default boolean rejects() {
+        return false;
+    }
+
+    /**
+     * @return {@link #NOT_FIRED} if the transaction passes, otherwise a positive score
+     *         describing how far past its threshold the transaction is
+     */
+    double evaluate(RuleContext context);
+}
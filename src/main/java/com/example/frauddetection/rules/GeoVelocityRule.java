@@ -0,0 +1,66 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.service.AccountWindow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flags travel between the account's previous location and this one that would need a speed
+ * above {@code fraud.detection.geo.max-speed-kmh}. Only locations in the {@link LocationIndex}
+ * are judged; moves shorter than {@code fraud.detection.geo.min-distance-km} never fire, which
+ * absorbs neighbouring cities and imprecise coordinates.
+ */
+@Component
+public class GeoVelocityRule implements FraudRule {
+    // Transactions closer together than this are treated as this far apart
+    private static final long MIN_ELAPSED_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final double MILLIS_PER_HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final LocationIndex locationIndex;
+    private final double maxSpeedKmh;
+    private final double minDistanceKm;
+
+    public GeoVelocityRule(LocationIndex locationIndex,
+                           @Value("${fraud.detection.geo.max-speed-kmh:900}") double maxSpeedKmh,
+                           @Value("${fraud.detection.geo.min-distance-km:100}") double minDistanceKm) {
+        this.locationIndex = locationIndex;
+        this.maxSpeedKmh = maxSpeedKmh;
+        this.minDistanceKm = minDistanceKm;
+    }
+
+    @Override
+    public FraudReason reason() {
+        return FraudReason.IMPOSSIBLE_TRAVEL;
+    }
+
+    @Override
+    public RuleInput input() {
+        return RuleInput.ACCOUNT_WINDOW;
+    }
+
+    @Override
+    public int cost() {
+        return 3;
+    }
+
+    @Override
+    public double evaluate(RuleContext context) {
+        AccountWindow window = context.getWindow();
+        int lastLocation = window.lastLocation();
+        int location = context.getCompact().getLocation();
+        if (lastLocation == CodeTable.NONE || lastLocation == location) {
+            return NOT_FIRED;
+        }
+        double distanceKm = locationIndex.distanceKm(lastLocation, location);
+        // Also false for NaN, when either location is not indexed
+        if (!(distanceKm >= minDistanceKm)) {
+            return NOT_FIRED;
+        }
+        long elapsedMillis = Math.max(MIN_ELAPSED_MILLIS, Math.abs(context.getNowMillis() - window.lastSeenMillis()));
+        double speedKmh = distanceKm / (elapsedMillis / MILLIS_PER_HOUR);
+        return speedKmh > maxSpeedKmh ? speedKmh / maxSpeedKmh : NOT_FIRED;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudReason;
+import org.springframework.stereotype.Component;
+
+@Component
+public class HighValueRule implements FraudRule {
+
+    @Override
+    public FraudReason reason() {
+        return FraudReason.HIGH_VALUE;
+    }
+
+    @Override
+    public RuleInput input() {
+        return RuleInput.TRANSACTION;
+    }
+
+    @Override
+    public int cost() {
+        return 1;
+    }
+
+    @Override
+    public double evaluate(RuleContext context) {
+        CompactTransaction transaction = context.getCompact();
+        long threshold = context.getThresholds().getAmountThresholdMinor();
+        if (!transaction.hasAmount() || transaction.getAmountMinor() <= threshold) {
+            return NOT_FIRED;
+        }
+        return threshold > 0 ? (double) transaction.getAmountMinor() / threshold : 1.0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudReason;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flags a change of location with an amount above the location change threshold. Pairs of
+ * locations that are both in the {@link LocationIndex} are left to {@link GeoVelocityRule},
+ * which can tell a plausible trip from an impossible one.
+ */
+@Component
+public class LocationChangeRule implements FraudRule {
+    private final LocationIndex locationIndex;
+
+    public LocationChangeRule() {
+        this(LocationIndex.EMPTY);
+    }
+
+    @Autowired
+    public LocationChangeRule(LocationIndex locationIndex) {
+        this.locationIndex = locationIndex;
+    }
+
+    @Override
+    public FraudReason reason() {
+        return FraudReason.SUSPICIOUS_LOCATION;
+    }
+
+    @Override
+    public RuleInput input() {
+        return RuleInput.ACCOUNT_WINDOW;
+    }
+
+    @Override
+    public int cost() {
+        return 3;
+    }
+
+    @Override
+    public double evaluate(RuleContext context) {
+        CompactTransaction transaction = context.getCompact();
+        int lastLocation = context.getWindow().lastLocation();
+        if (lastLocation == CodeTable.NONE || !transaction.hasAmount()) {
+            return NOT_FIRED;
+        }
+        if (locationIndex.contains(lastLocation) && locationIndex.contains(transaction.getLocation())) {
+            return NOT_FIRED;
+        }
+        // Locations differ and the amount is above the location change threshold
+        long threshold = context.getThresholds().getLocationChangeThresholdMinor();
+        boolean sameLocation = lastLocation == transaction.getLocation() && lastLocation != CodeTable.OVERFLOW;
+        if (sameLocation || transaction.getAmountMinor() <= threshold) {
+            return NOT_FIRED;
+        }
+        return threshold > 0 ? (double) transaction.getAmountMinor() / threshold : 1.0;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.frauddetection.rules;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Coordinates of known locations, indexed by location code in one packed array so a distance
+ * lookup is a few array reads and two trigonometric calls, with no allocation.
+ * <p>
+ * Built from CSV lines of {@code name,latitude,longitude} in degrees; blank lines and lines
+ * starting with {@code #} are skipped, and the name may itself contain commas. Names are interned
+ * into the location {@link CodeTable} while loading, so locations seen later are not in the index.
+ */
+public final class LocationIndex {
+    public static final LocationIndex EMPTY = new LocationIndex(new double[0], 0);
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    // Per location code: sin(latitude), cos(latitude), longitude in radians; NaN when unknown
+    private static final int STRIDE = 3;
+
+    private final double[] coordinates;
+    private final int size;
+
+    private LocationIndex(double[] coordinates, int size) {
+        this.coordinates = coordinates;
+        this.size = size;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a line is not a valid {@code name,latitude,longitude}
+     */
+    public static LocationIndex load(BufferedReader reader, CodeTable locations) throws IOException {
+        double[] coordinates = new double[STRIDE * 64];
+        Arrays.fill(coordinates, Double.NaN);
+        int size = 0;
+        int lineNumber = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int lonSeparator = line.lastIndexOf(',');
+            int latSeparator = lonSeparator > 0 ? line.lastIndexOf(',', lonSeparator - 1) : -1;
+            if (latSeparator <= 0) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected name,latitude,longitude");
+            }
+            double latitude = parseDegrees(line.substring(latSeparator + 1, lonSeparator), 90, lineNumber);
+            double longitude = parseDegrees(line.substring(lonSeparator + 1), 180, lineNumber);
+            int code = locations.codeOf(line.substring(0, latSeparator).strip());
+            if (STRIDE * code + STRIDE > coordinates.length) {
+                int length = coordinates.length;
+                coordinates = Arrays.copyOf(coordinates, Math.max(2 * length, STRIDE * code + STRIDE));
+                Arrays.fill(coordinates, length, coordinates.length, Double.NaN);
+            }
+            if (Double.isNaN(coordinates[STRIDE * code])) {
+                size++;
+            }
+            double latRadians = Math.toRadians(latitude);
+            coordinates[STRIDE * code] = Math.sin(latRadians);
+            coordinates[STRIDE * code + 1] = Math.cos(latRadians);
+            coordinates[STRIDE * code + 2] = Math.toRadians(longitude);
+        }
+        return new LocationIndex(coordinates, size);
+    }
+
+    public boolean contains(int location) {
+        return location > CodeTable.NONE && STRIDE * location < coordinates.length
+            && !Double.isNaN(coordinates[STRIDE * location]);
+    }
+
+    /**
+     * @return the great-circle distance between two locations, or NaN if either is not indexed
+     */
+    public double distanceKm(int from, int to) {
+        if (!contains(from) || !contains(to)) {
+            return Double.NaN;
+        }
+        int a = STRIDE * from;
+        int b = STRIDE * to;
+        // Spherical law of cosines: precise enough at city scale and cheaper than haversine
+        double cosAngle = coordinates[a] * coordinates[b]
+            + coordinates[a + 1] * coordinates[b + 1] * Math.cos(coordinates[b + 2] - coordinates[a + 2]);
+        return EARTH_RADIUS_KM * Math.acos(Math.max(-1.0, Math.min(1.0, cosAngle)));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static double parseDegrees(String value, double limit, int lineNumber) {
+        try {
+            double degrees = Double.parseDouble(value.strip());
+            if (degrees >= -limit && degrees <= limit) {
+                return degrees;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Line " + lineNumber + ": " + value.strip() + " is not within +/-" + (int) limit + " degrees");
+    }
+}
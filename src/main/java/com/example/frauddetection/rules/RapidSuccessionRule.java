@@ -0,0 +1,31 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudReason;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RapidSuccessionRule implements FraudRule {
+    private static final int RAPID_TRANSACTIONS = 3;
+
+    @Override
+    public FraudReason reason() {
+        return FraudReason.RAPID_SUCCESSION;
+    }
+
+    @Override
+    public RuleInput input() {
+        return RuleInput.ACCOUNT_WINDOW;
+    }
+
+    @Override
+    public int cost() {
+        return 2;
+    }
+
+    @Override
+    public double evaluate(RuleContext context) {
+        // 3 or more transactions within the last 5 minutes
+        int rapidTransactions = context.getWindow().recentCount();
+        return rapidTransactions >= RAPID_TRANSACTIONS ? (double) rapidTransactions / RAPID_TRANSACTIONS : NOT_FIRED;
+    }
+}
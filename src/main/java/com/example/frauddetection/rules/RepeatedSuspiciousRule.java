@@ -0,0 +1,34 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudReason;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RepeatedSuspiciousRule implements FraudRule {
+
+    @Override
+    public FraudReason reason() {
+        return FraudReason.REPEATED_SUSPICIOUS;
+    }
+
+    @Override
+    public RuleInput input() {
+        return RuleInput.ACCOUNT_WINDOW;
+    }
+
+    @Override
+    public int cost() {
+        return 1;
+    }
+
+    @Override
+    public double evaluate(RuleContext context) {
+        // Multiple suspicious transactions in the last 24 hours
+        long suspiciousCount = context.getWindow().suspiciousCount();
+        int threshold = context.getThresholds().getSuspiciousTransactionsThreshold();
+        if (suspiciousCount < threshold) {
+            return NOT_FIRED;
+        }
+        return threshold > 0 ? (double) suspiciousCount / threshold : 1.0;
+    }
+}
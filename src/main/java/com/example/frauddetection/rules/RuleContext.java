@@ -0,0 +1,58 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.service.AccountWindow;
+
+/**
+ * Everything a rule may read while one transaction is evaluated. The account window is only
+ * attached once the pipeline reaches rules that declare {@link RuleInput#ACCOUNT_WINDOW}.
+ * A context is reused for successive evaluations on the same thread via {@link #reset}.
+ */
+public class RuleContext {
+    private final CompactTransaction compact = new CompactTransaction();
+    private Transaction transaction;
+    private RuleThresholds thresholds;
+    private AccountWindow window;
+
+    public RuleContext reset(Transaction transaction, long nowMillis, RuleThresholds thresholds, TransactionCodes codes) {
+        this.transaction = transaction;
+        this.thresholds = thresholds;
+        this.window = null;
+        compact.load(transaction, nowMillis, codes);
+        return this;
+    }
+
+    /**
+     * Like {@link #reset(Transaction, long, RuleThresholds, TransactionCodes)}, with the thresholds
+     * {@code table} resolves for the transaction's merchant and currency.
+     */
+    public RuleContext reset(Transaction transaction, long nowMillis, ThresholdTable table, TransactionCodes codes) {
+        reset(transaction, nowMillis, (RuleThresholds) null, codes);
+        this.thresholds = table.resolve(compact.getMerchant(), compact.getCurrency());
+        return this;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public CompactTransaction getCompact() {
+        return compact;
+    }
+
+    public long getNowMillis() {
+        return compact.getTimestampMillis();
+    }
+
+    public RuleThresholds getThresholds() {
+        return thresholds;
+    }
+
+    public AccountWindow getWindow() {
+        return window;
+    }
+
+    public void setWindow(AccountWindow window) {
+        this.window = window;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.frauddetection.rules;
+
+/**
+ * Data a {@link FraudRule} needs in order to be evaluated.
+ */
+public enum RuleInput {
+    /** Only the incoming transaction itself. */
+    TRANSACTION,
+    /** The account's sliding window, which may have to be seeded from the repository. */
+    ACCOUNT_WINDOW
+}
@@ -0,0 +1,75 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudVerdict;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rules compiled into two cheapest-first stages. Transaction-only rules always run before
+ * window rules, because resolving account state dominates any rule's own cost; each stage
+ * short-circuits on the first rule that fires. Every rule evaluation is timed under
+ * {@code fraud.rule.evaluation}, tagged with the rule's reason.
+ */
+public class RulePipeline {
+    private final FraudRule[] transactionRules;
+    private final FraudRule[] windowRules;
+    private final Timer[] transactionRuleTimers;
+    private final Timer[] windowRuleTimers;
+
+    public RulePipeline(List<FraudRule> rules, MeterRegistry registry) {
+        this.transactionRules = compile(rules, RuleInput.TRANSACTION);
+        this.windowRules = compile(rules, RuleInput.ACCOUNT_WINDOW);
+        this.transactionRuleTimers = timers(transactionRules, registry);
+        this.windowRuleTimers = timers(windowRules, registry);
+    }
+
+    /**
+     * @return the verdict of the first transaction-only rule that fires, or {@code null} if
+     *         the decision needs the account window
+     */
+    public FraudVerdict evaluateTransactionRules(RuleContext context) {
+        return evaluate(transactionRules, transactionRuleTimers, context);
+    }
+
+    /**
+     * Runs the window rules; the context must already carry the account window.
+     */
+    public FraudVerdict evaluateWindowRules(RuleContext context) {
+        FraudVerdict verdict = evaluate(windowRules, windowRuleTimers, context);
+        return verdict != null ? verdict : FraudVerdict.approved();
+    }
+
+    private static FraudVerdict evaluate(FraudRule[] rules, Timer[] timers, RuleContext context) {
+        for (int i = 0; i < rules.length; i++) {
+            long startNanos = System.nanoTime();
+            double score = rules[i].evaluate(context);
+            timers[i].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (score > FraudRule.NOT_FIRED) {
+                return rules[i].rejects() ? FraudVerdict.rejected(rules[i].reason(), score) : FraudVerdict.flagged(rules[i].reason(), score);
+            }
+        }
+        return null;
+    }
+
+    private static Timer[] timers(FraudRule[] rules, MeterRegistry registry) {
+        Timer[] timers = new Timer[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            timers[i] = Timer.builder("fraud.rule.evaluation")
+                .tag("rule", rules[i].reason().name())
+                .publishPercentileHistogram()
+                .register(registry);
+        }
+        return timers;
+    }
+
+    private static FraudRule[] compile(List<FraudRule> rules, RuleInput input) {
+        return rules.stream()
+            .filter(rule -> rule.input() == input)
+            .sorted(Comparator.comparingInt(FraudRule::cost))
+            .toArray(FraudRule[]::new);
+    }
+}
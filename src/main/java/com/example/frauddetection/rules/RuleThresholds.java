@@ -0,0 +1,54 @@
+package com.example.frauddetection.rules;
+
+import java.math.BigDecimal;
+
+/**
+ * Rule thresholds pre-converted to the units the compact rules compare against.
+ */
+public class RuleThresholds {
+    private final BigDecimal amountThreshold;
+    private final BigDecimal locationChangeThreshold;
+    private final long amountThresholdMinor;
+    private final int suspiciousTransactionsThreshold;
+    private final long locationChangeThresholdMinor;
+
+    public RuleThresholds(BigDecimal amountThreshold, int suspiciousTransactionsThreshold,
+                          BigDecimal locationChangeThreshold) {
+        this.amountThreshold = amountThreshold;
+        this.locationChangeThreshold = locationChangeThreshold;
+        this.amountThresholdMinor = CompactTransaction.toMinorUnits(amountThreshold);
+        this.suspiciousTransactionsThreshold = suspiciousTransactionsThreshold;
+        this.locationChangeThresholdMinor = CompactTransaction.toMinorUnits(locationChangeThreshold);
+    }
+
+    /**
+     * True if these thresholds were built from exactly the given values, which lets callers
+     * keep one instance until a threshold is replaced.
+     */
+    public boolean isBuiltFrom(BigDecimal amountThreshold, int suspiciousTransactionsThreshold,
+                               BigDecimal locationChangeThreshold) {
+        return this.amountThreshold == amountThreshold
+            && this.suspiciousTransactionsThreshold == suspiciousTransactionsThreshold
+            && this.locationChangeThreshold == locationChangeThreshold;
+    }
+
+    public BigDecimal getAmountThreshold() {
+        return amountThreshold;
+    }
+
+    public BigDecimal getLocationChangeThreshold() {
+        return locationChangeThreshold;
+    }
+
+    public long getAmountThresholdMinor() {
+        return amountThresholdMinor;
+    }
+
+    public int getSuspiciousTransactionsThreshold() {
+        return suspiciousTransactionsThreshold;
+    }
+
+    public long getLocationChangeThresholdMinor() {
+        return locationChangeThresholdMinor;
+    }
+}
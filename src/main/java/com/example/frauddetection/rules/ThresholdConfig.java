@@ -0,0 +1,26 @@
+package com.example.frauddetection.rules;
+
+import java.util.Map;
+
+/**
+ * Threshold overrides on top of the values in {@code application.yml}: {@code defaults} apply to
+ * every transaction, a currency or merchant entry to transactions in that currency or with that
+ * merchant. A merchant entry wins over a currency entry; neither is combined with the other.
+ * <pre>
+ * {"defaults": {"amountThreshold": 1000},
+ *  "currencies": {"JPY": {"amountThreshold": 150000, "locationChangeThreshold": 75000}},
+ *  "merchants": {"MERCHANT-42": {"suspiciousTransactionsThreshold": 2}}}
+ * </pre>
+ */
+public record ThresholdConfig(ThresholdSettings defaults,
+                              Map<String, ThresholdSettings> currencies,
+                              Map<String, ThresholdSettings> merchants) {
+
+    public static final ThresholdConfig EMPTY = new ThresholdConfig(ThresholdSettings.NONE, Map.of(), Map.of());
+
+    public ThresholdConfig {
+        defaults = defaults != null ? defaults : ThresholdSettings.NONE;
+        currencies = currencies != null ? Map.copyOf(currencies) : Map.of();
+        merchants = merchants != null ? Map.copyOf(merchants) : Map.of();
+    }
+}
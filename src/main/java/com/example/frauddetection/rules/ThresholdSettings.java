@@ -0,0 +1,32 @@
+package com.example.frauddetection.rules;
+
+import java.math.BigDecimal;
+
+/**
+ * Threshold values read from configuration. A null value leaves the threshold it would replace
+ * unchanged, so an override only needs to name what differs.
+ */
+public record ThresholdSettings(BigDecimal amountThreshold,
+                                Integer suspiciousTransactionsThreshold,
+                                BigDecimal locationChangeThreshold) {
+
+    public static final ThresholdSettings NONE = new ThresholdSettings(null, null, null);
+
+    /**
+     * @throws IllegalArgumentException if a threshold is negative
+     */
+    public RuleThresholds applyTo(RuleThresholds base) {
+        if ((amountThreshold != null && amountThreshold.signum() < 0)
+            || (suspiciousTransactionsThreshold != null && suspiciousTransactionsThreshold < 0)
+            || (locationChangeThreshold != null && locationChangeThreshold.signum() < 0)) {
+            throw new IllegalArgumentException("Thresholds must not be negative: " + this);
+        }
+        if (equals(NONE)) {
+            return base;
+        }
+        return new RuleThresholds(
+            amountThreshold != null ? amountThreshold : base.getAmountThreshold(),
+            suspiciousTransactionsThreshold != null ? suspiciousTransactionsThreshold : base.getSuspiciousTransactionsThreshold(),
+            locationChangeThreshold != null ? locationChangeThreshold : base.getLocationChangeThreshold());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.frauddetection.rules;
+
+import java.util.Map;
+
+/**
+ * Immutable lookup of the {@link RuleThresholds} that apply to a transaction, built once per
+ * configuration change. Overrides are indexed by currency and merchant code, so resolving them
+ * on the hot path is two array reads. Replace the whole table to change a threshold.
+ */
+public final class ThresholdTable {
+    private static final RuleThresholds[] NO_OVERRIDES = new RuleThresholds[0];
+
+    private final RuleThresholds base;
+    private final RuleThresholds defaults;
+    private final RuleThresholds[] byCurrency;
+    private final RuleThresholds[] byMerchant;
+    private final ThresholdConfig config;
+
+    private ThresholdTable(RuleThresholds base, RuleThresholds defaults, RuleThresholds[] byCurrency,
+                           RuleThresholds[] byMerchant, ThresholdConfig config) {
+        this.base = base;
+        this.defaults = defaults;
+        this.byCurrency = byCurrency;
+        this.byMerchant = byMerchant;
+        this.config = config;
+    }
+
+    /**
+     * @param base the thresholds from {@code application.yml}, which {@code config} overrides
+     * @throws IllegalArgumentException if {@code config} holds a negative threshold
+     */
+    public static ThresholdTable build(RuleThresholds base, ThresholdConfig config, TransactionCodes codes) {
+        RuleThresholds defaults = config.defaults().applyTo(base);
+        return new ThresholdTable(base, defaults, index(config.currencies(), defaults, codes.currencies()),
+            index(config.merchants(), defaults, codes.merchants()), config);
+    }
+
+    private static RuleThresholds[] index(Map<String, ThresholdSettings> overrides, RuleThresholds defaults, CodeTable table) {
+        if (overrides.isEmpty()) {
+            return NO_OVERRIDES;
+        }
+        int[] codes = new int[overrides.size()];
+        RuleThresholds[] thresholds = new RuleThresholds[overrides.size()];
+        int maxCode = CodeTable.NONE;
+        int i = 0;
+        for (Map.Entry<String, ThresholdSettings> override : overrides.entrySet()) {
+            codes[i] = table.codeOf(override.getKey());
+            thresholds[i] = override.getValue().applyTo(defaults);
+            maxCode = Math.max(maxCode, codes[i]);
+            i++;
+        }
+        RuleThresholds[] byCode = new RuleThresholds[maxCode + 1];
+        for (i = 0; i < codes.length; i++) {
+            // A value first seen after its table filled up cannot be told apart, so it gets no override
+            if (codes[i] > CodeTable.NONE) {
+                byCode[codes[i]] = thresholds[i];
+            }
+        }
+        return byCode;
+    }
+
+    public RuleThresholds resolve(int merchant, int currency) {
+        if (merchant > CodeTable.NONE && merchant < byMerchant.length && byMerchant[merchant] != null) {
+            return byMerchant[merchant];
+        }
+        if (currency > CodeTable.NONE && currency < byCurrency.length && byCurrency[currency] != null) {
+            return byCurrency[currency];
+        }
+        return defaults;
+    }
+
+    public RuleThresholds getBase() {
+        return base;
+    }
+
+    public ThresholdConfig getConfig() {
+        return config;
+    }
+}
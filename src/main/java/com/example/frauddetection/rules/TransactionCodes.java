@@ -0,0 +1,29 @@
+package com.example.frauddetection.rules;
+
+/**
+ * The code tables used to compact transactions for the rule engine, each bounded well above the
+ * distinct values real traffic carries. Merchants are only interned for their threshold
+ * overrides, since no rule compares them otherwise; transactions look their merchant up without
+ * adding it, so the table holds configured merchants rather than every merchant seen.
+ */
+public class TransactionCodes {
+    public static final int MAX_CURRENCIES = 4096;
+    public static final int MAX_LOCATIONS = 1 << 16;
+    public static final int MAX_MERCHANTS = 1 << 16;
+
+    private final CodeTable currencies = new CodeTable(MAX_CURRENCIES);
+    private final CodeTable locations = new CodeTable(MAX_LOCATIONS);
+    private final CodeTable merchants = new CodeTable(MAX_MERCHANTS);
+
+    public CodeTable currencies() {
+        return currencies;
+    }
+
+    public CodeTable locations() {
+        return locations;
+    }
+
+    public CodeTable merchants() {
+        return merchants;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.service.AccountWindow;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UnusualCurrencyRule implements FraudRule {
+
+    @Override
+    public FraudReason reason() {
+        return FraudReason.UNUSUAL_CURRENCY;
+    }
+
+    @Override
+    public RuleInput input() {
+        return RuleInput.ACCOUNT_WINDOW;
+    }
+
+    @Override
+    public int cost() {
+        return 4;
+    }
+
+    @Override
+    public double evaluate(RuleContext context) {
+        AccountWindow window = context.getWindow();
+        // Multiple currencies already used recently, and this is a new one
+        int currency = context.getCompact().getCurrency();
+        if (window.distinctCurrencies() >= 2 && (currency == CodeTable.OVERFLOW || !window.hasCurrency(currency))) {
+            return 1.0;
+        }
+        return NOT_FIRED;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.frauddetection.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hashes each account to one of a fixed number of lanes. Tasks in a lane run strictly one after
+ * another in submission order, while different lanes run in parallel on the underlying executor,
+ * so per-account state is only ever touched by one thread at a time.
+ */
+public class AccountPartitionedExecutor {
+    private static final Logger log = LoggerFactory.getLogger(AccountPartitionedExecutor.class);
+
+    private final Lane[] lanes;
+    private final AtomicInteger pendingTasks = new AtomicInteger();
+
+    public AccountPartitionedExecutor(Executor executor, int laneCount) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be at least 1, was " + laneCount);
+        }
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(executor, pendingTasks);
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(String accountId, Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        execute(accountId, () -> {
+            try {
+                result.complete(work.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    public void execute(String accountId, Runnable task) {
+        lanes[laneOf(accountId)].execute(task);
+    }
+
+    public int laneOf(String accountId) {
+        if (accountId == null) {
+            return 0;
+        }
+        // Spread the String hash so accounts with similar ids do not cluster on adjacent lanes
+        int hash = accountId.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * @return tasks accepted by any lane that have not started running yet
+     */
+    public int getPendingTasks() {
+        return pendingTasks.get();
+    }
+
+    /**
+     * Serial executor: the first task submitted to an idle lane schedules a drain loop on the
+     * underlying executor, which then runs queued tasks until the lane is empty again. Only idle
+     * lanes ever submit, so a bounded underlying executor cannot deadlock on its own lanes.
+     */
+    private static final class Lane {
+        private final Executor executor;
+        private final AtomicInteger pendingTasks;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+
+        Lane(Executor executor, AtomicInteger pendingTasks) {
+            this.executor = executor;
+            this.pendingTasks = pendingTasks;
+        }
+
+        void execute(Runnable task) {
+            synchronized (this) {
+                tasks.add(task);
+                pendingTasks.incrementAndGet();
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    tasks.remove(task);
+                    pendingTasks.decrementAndGet();
+                    scheduled = false;
+                }
+                throw e;
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable next;
+                synchronized (this) {
+                    next = tasks.poll();
+                    if (next == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                pendingTasks.decrementAndGet();
+                try {
+                    next.run();
+                } catch (RuntimeException e) {
+                    log.error("Task failed in account lane", e);
+                }
+            }
+        }
+    }
+}
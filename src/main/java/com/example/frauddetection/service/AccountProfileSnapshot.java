@@ -0,0 +1,141 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.rules.CodeTable;
+import com.example.frauddetection.rules.TransactionCodes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * Binary snapshot of an {@link AccountProfileStore}, so a new process starts with warm profiles
+ * instead of querying the repository for every account it sees. The file holds a header, the
+ * location and currency code tables and then the raw records; codes are remapped on load because
+ * another process interns values in a different order.
+ * <p>
+ * Snapshots are written to a temporary file and moved into place, so a crash while writing
+ * leaves the previous snapshot intact. The same format carries profiles between instances when
+ * account ownership moves, see {@code AccountOwnership}.
+ */
+final class AccountProfileSnapshot {
+    private static final int MAGIC = 0x46445053; // "FDPS"
+    private static final int VERSION = 1;
+
+    private AccountProfileSnapshot() {
+    }
+
+    /**
+     * @return the number of records written
+     */
+    static long write(AccountProfileStore store, TransactionCodes codes, Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long written;
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            written = write(store, codes, out, key -> true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    /**
+     * Writes the records whose key matches {@code keyFilter} to {@code stream}, which is left open.
+     *
+     * @return the number of records written
+     */
+    static long write(AccountProfileStore store, TransactionCodes codes, OutputStream stream, LongPredicate keyFilter) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(AccountWindow.RECORD_BYTES);
+        out.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN);
+        out.writeLong(System.currentTimeMillis());
+        writeCodes(out, codes.locations());
+        writeCodes(out, codes.currencies());
+        long written = store.writeRecords(out, keyFilter);
+        out.flush();
+        return written;
+    }
+
+    /**
+     * Restores the records of a snapshot whose newest transaction is still inside the window
+     * at {@code nowMillis}. Accounts already in the store keep their record unless it is older,
+     * see {@link AccountProfileStore#readRecords}.
+     *
+     * @return the number of records restored
+     * @throws IOException if the file cannot be read or was written by an incompatible process
+     */
+    static long read(AccountProfileStore store, TransactionCodes codes, Path path, long nowMillis) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(store, codes, in, path.toString(), nowMillis);
+        }
+    }
+
+    /**
+     * Like {@link #read(AccountProfileStore, TransactionCodes, Path, long)}, from a stream that is
+     * left open; {@code source} only names it in error messages.
+     */
+    static long read(AccountProfileStore store, TransactionCodes codes, InputStream stream, String source, long nowMillis) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != AccountWindow.RECORD_BYTES) {
+            throw new IOException("Not a compatible account profile snapshot: " + source);
+        }
+        if (in.readBoolean() != (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN)) {
+            throw new IOException("Account profile snapshot was written with another byte order: " + source);
+        }
+        long createdAtMillis = in.readLong();
+        long cutoff = nowMillis - AccountWindow.WINDOW_MILLIS;
+        if (createdAtMillis < cutoff) {
+            return 0;
+        }
+        int[] locations = readCodes(in, codes.locations());
+        int[] currencies = readCodes(in, codes.currencies());
+        return store.readRecords(in, window -> {
+            if (window.lastSeenMillis() < cutoff) {
+                return false;
+            }
+            window.remapCodes(locations, currencies);
+            return true;
+        });
+    }
+
+    private static void writeCodes(DataOutputStream out, CodeTable table) throws IOException {
+        Map<String, Integer> entries = new HashMap<>();
+        table.forEach(entries::put);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    /**
+     * @return this process's code for every code in the snapshot's table, indexed by the old code
+     */
+    private static int[] readCodes(DataInputStream in, CodeTable table) throws IOException {
+        int size = in.readInt();
+        String[] values = new String[size];
+        int[] oldCodes = new int[size];
+        int maxCode = CodeTable.NONE;
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readUTF();
+            oldCodes[i] = in.readInt();
+            maxCode = Math.max(maxCode, oldCodes[i]);
+        }
+        int[] mapping = new int[maxCode + 1];
+        for (int i = 0; i < size; i++) {
+            mapping[oldCodes[i]] = table.codeOf(values[i]);
+        }
+        return mapping;
+    }
+}
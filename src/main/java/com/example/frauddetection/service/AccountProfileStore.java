@@ -0,0 +1,332 @@
+package com.example.frauddetection.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Off-heap home of every account's {@link AccountWindow} record, sized for millions of accounts
+ * without per-account heap objects or GC work. Records live in direct buffers split into
+ * {@value #SEGMENTS} segments; each segment is an open-addressing hash table probed linearly for
+ * at most {@value #MAX_PROBE} slots and guarded by its own monitor, returned by {@link #lockFor}.
+ * <p>
+ * Accounts are keyed by a 64-bit hash of their id. With n accounts the chance that any two share
+ * a key is about n&sup2; / 2<sup>65</sup>, which is negligible at these sizes. When every slot in an
+ * account's probe range is taken, the record with the oldest transaction is replaced.
+ */
+public class AccountProfileStore {
+    private static final int SEGMENTS = 256;
+    private static final int MAX_PROBE = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int slotsPerSegment;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder occupied = new LongAdder();
+
+    /**
+     * @param capacity number of record slots, rounded up to a power of two; keep the expected
+     *                 number of accounts below about 75% of it to make replacements rare
+     */
+    public AccountProfileStore(int capacity) {
+        int perSegment = Math.max(MAX_PROBE, Integer.highestOneBit(Math.max(1, capacity / SEGMENTS - 1)) << 1);
+        if ((long) perSegment * AccountWindow.RECORD_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is too large");
+        }
+        this.slotsPerSegment = perSegment;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(ByteBuffer.allocateDirect(perSegment * AccountWindow.RECORD_BYTES)
+                .order(ByteOrder.nativeOrder()));
+        }
+    }
+
+    /**
+     * @return the monitor that must be held while a view is attached to the account's record
+     */
+    public Object lockFor(String accountId) {
+        return segmentOf(keyOf(accountId));
+    }
+
+    /**
+     * Attaches {@code view} to the account's record if it has one. The caller holds {@link #lockFor}.
+     */
+    public boolean attach(String accountId, AccountWindow view) {
+        long key = keyOf(accountId);
+        Segment segment = segmentOf(key);
+        int base = find(segment, key);
+        if (base < 0) {
+            misses.increment();
+            return false;
+        }
+        hits.increment();
+        view.attach(segment.records, base);
+        return true;
+    }
+
+    /**
+     * Like {@link #attach} without a view, and not counted as a lookup. The caller holds {@link #lockFor}.
+     */
+    public boolean contains(String accountId) {
+        long key = keyOf(accountId);
+        return find(segmentOf(key), key) >= 0;
+    }
+
+    /**
+     * Removes the account's record if it has one. The caller holds {@link #lockFor}.
+     *
+     * @return true if a record was removed
+     */
+    public boolean remove(String accountId) {
+        long key = keyOf(accountId);
+        Segment segment = segmentOf(key);
+        int base = find(segment, key);
+        if (base < 0) {
+            return false;
+        }
+        remove(segment, base / AccountWindow.RECORD_BYTES);
+        occupied.add(-1);
+        return true;
+    }
+
+    /**
+     * Attaches {@code view} to the account's record, creating an empty one if needed.
+     * The caller holds {@link #lockFor}.
+     *
+     * @return true if the record was created and still has to be seeded
+     */
+    public boolean attachOrCreate(String accountId, AccountWindow view) {
+        return attachOrCreate(keyOf(accountId), view);
+    }
+
+    /**
+     * Writes every record as chunks of {@code int count} followed by that many raw records, one
+     * chunk per segment, ending with a count of -1. Each segment is copied under its lock, so
+     * writing never blocks detection for longer than one segment copy.
+     *
+     * @return the number of records written
+     */
+    public long writeRecords(DataOutput out) throws IOException {
+        return writeRecords(out, key -> true);
+    }
+
+    /**
+     * Like {@link #writeRecords(DataOutput)}, for the records whose key, see {@link #keyOf}, matches.
+     *
+     * @return the number of records written
+     */
+    public long writeRecords(DataOutput out, LongPredicate keyFilter) throws IOException {
+        byte[] copy = new byte[slotsPerSegment * AccountWindow.RECORD_BYTES];
+        long written = 0;
+        for (Segment segment : segments) {
+            int length = 0;
+            synchronized (segment) {
+                for (int base = 0; base < copy.length; base += AccountWindow.RECORD_BYTES) {
+                    long key = segment.records.getLong(base + AccountWindow.KEY);
+                    if (key != 0 && keyFilter.test(key)) {
+                        segment.records.get(base, copy, length, AccountWindow.RECORD_BYTES);
+                        length += AccountWindow.RECORD_BYTES;
+                    }
+                }
+            }
+            out.writeInt(length / AccountWindow.RECORD_BYTES);
+            out.write(copy, 0, length);
+            written += length / AccountWindow.RECORD_BYTES;
+        }
+        out.writeInt(-1);
+        return written;
+    }
+
+    /**
+     * Reads records written by {@link #writeRecords}, possibly by a store of another capacity.
+     * Each record is first shown to {@code accept} through a view, which may rewrite it (for
+     * example to remap codes) or return false to skip it. An account that already has a record
+     * keeps it only if it saw a later transaction than the incoming record.
+     *
+     * @return the number of records restored or replaced
+     */
+    public long readRecords(DataInput in, Predicate<AccountWindow> accept) throws IOException {
+        byte[] record = new byte[AccountWindow.RECORD_BYTES];
+        ByteBuffer recordBuffer = ByteBuffer.wrap(record).order(ByteOrder.nativeOrder());
+        AccountWindow incoming = new AccountWindow();
+        incoming.attach(recordBuffer, 0);
+        AccountWindow view = new AccountWindow();
+        long count = 0;
+        for (int chunk = in.readInt(); chunk >= 0; chunk = in.readInt()) {
+            for (int i = 0; i < chunk; i++) {
+                in.readFully(record);
+                if (!accept.test(incoming)) {
+                    continue;
+                }
+                long key = recordBuffer.getLong(AccountWindow.KEY);
+                synchronized (segmentOf(key)) {
+                    if (attachOrCreate(key, view) || view.lastSeenMillis() < incoming.lastSeenMillis()) {
+                        view.copyFrom(record);
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes the records whose key matches. Later records of a probe run are shifted back into
+     * the freed slots, so the remaining records are still found. Each segment is processed under
+     * its lock.
+     *
+     * @return the number of records removed
+     */
+    public long removeIf(LongPredicate keyFilter) {
+        long removed = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (int slot = 0; slot < slotsPerSegment; slot++) {
+                    long key = segment.records.getLong(offsetOf(slot) + AccountWindow.KEY);
+                    if (key != 0 && keyFilter.test(key)) {
+                        remove(segment, slot);
+                        removed++;
+                        // Look at the record that was shifted into this slot
+                        slot--;
+                    }
+                }
+            }
+        }
+        occupied.add(-removed);
+        return removed;
+    }
+
+    private void remove(Segment segment, int slot) {
+        int mask = slotsPerSegment - 1;
+        int hole = slot & mask;
+        int next = hole;
+        for (int step = 1; step < slotsPerSegment; step++) {
+            next = (next + 1) & mask;
+            long key = segment.records.getLong(offsetOf(next) + AccountWindow.KEY);
+            if (key == 0) {
+                break;
+            }
+            // A record may fill the hole only if the hole lies between its start slot and its slot
+            int home = startSlot(key) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                segment.records.put(offsetOf(hole), segment.records, offsetOf(next), AccountWindow.RECORD_BYTES);
+                hole = next;
+            }
+        }
+        segment.records.putLong(offsetOf(hole) + AccountWindow.KEY, 0);
+    }
+
+    private boolean attachOrCreate(long key, AccountWindow view) {
+        Segment segment = segmentOf(key);
+        int start = startSlot(key);
+        int victim = -1;
+        long victimLastSeen = Long.MAX_VALUE;
+        for (int i = 0; i < MAX_PROBE; i++) {
+            int base = offsetOf(start + i);
+            long slotKey = segment.records.getLong(base + AccountWindow.KEY);
+            if (slotKey == key) {
+                view.attach(segment.records, base);
+                return false;
+            }
+            if (slotKey == 0) {
+                victim = base;
+                victimLastSeen = Long.MIN_VALUE;
+                break;
+            }
+            long lastSeen = segment.records.getLong(base + AccountWindow.LAST_SEEN);
+            if (lastSeen < victimLastSeen) {
+                victim = base;
+                victimLastSeen = lastSeen;
+            }
+        }
+        if (victimLastSeen == Long.MIN_VALUE) {
+            occupied.increment();
+        } else {
+            evictions.increment();
+        }
+        view.attach(segment.records, victim);
+        view.clear(key);
+        return true;
+    }
+
+    private int find(Segment segment, long key) {
+        int start = startSlot(key);
+        for (int i = 0; i < MAX_PROBE; i++) {
+            int base = offsetOf(start + i);
+            long slotKey = segment.records.getLong(base + AccountWindow.KEY);
+            if (slotKey == key) {
+                return base;
+            }
+            if (slotKey == 0) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    public long size() {
+        return occupied.sum();
+    }
+
+    public long capacity() {
+        return (long) slotsPerSegment * SEGMENTS;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private Segment segmentOf(long key) {
+        return segments[(int) key & (SEGMENTS - 1)];
+    }
+
+    private int startSlot(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private int offsetOf(int slot) {
+        return (slot & (slotsPerSegment - 1)) * AccountWindow.RECORD_BYTES;
+    }
+
+    /**
+     * @return the 64-bit key the account's record is stored under, never 0
+     */
+    public static long keyOf(String accountId) {
+        // FNV-1a over the chars, finished with the MurmurHash3 mixer so every bit depends on every char
+        long hash = 0xcbf29ce484222325L;
+        if (accountId != null) {
+            for (int i = 0; i < accountId.length(); i++) {
+                hash ^= accountId.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        // 0 marks a free slot
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static final class Segment {
+        private final ByteBuffer records;
+
+        Segment(ByteBuffer records) {
+            this.records = records;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.ownership.AccountOwnership;
+import com.example.frauddetection.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the account profile store before the instance takes traffic, so a new pod does not
+ * query the repository for every account it sees in its first minutes. On start it restores the
+ * local snapshot if there is one, or else preloads the most active accounts of the last 24 hours,
+ * keeping only the accounts this instance owns, see {@link AccountOwnership}; afterwards it
+ * snapshots the store periodically and once more on shutdown.
+ * <p>
+ * Warm-up runs in an early lifecycle phase, before the SQS listeners and the web server start,
+ * so no message is consumed and the readiness probe fails until it has finished.
+ */
+@Component
+public class AccountProfileWarmup implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(AccountProfileWarmup.class);
+    private static final int PHASE = 0;
+
+    private final FraudDetectionService fraudDetectionService;
+    private final TransactionRepository transactionRepository;
+    private final AccountOwnership accountOwnership;
+    private final Path snapshotPath;
+    private final long snapshotIntervalSeconds;
+    private final int preloadAccounts;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public AccountProfileWarmup(FraudDetectionService fraudDetectionService,
+                                TransactionRepository transactionRepository,
+                                AccountOwnership accountOwnership,
+                                @Value("${fraud.profiles.snapshot.path:}") String snapshotPath,
+                                @Value("${fraud.profiles.snapshot.interval-seconds:300}") long snapshotIntervalSeconds,
+                                @Value("${fraud.profiles.preload.accounts:10000}") int preloadAccounts) {
+        this.fraudDetectionService = fraudDetectionService;
+        this.transactionRepository = transactionRepository;
+        this.accountOwnership = accountOwnership;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.preloadAccounts = preloadAccounts;
+    }
+
+    @Override
+    public void start() {
+        long startMillis = System.currentTimeMillis();
+        long restored = restoreSnapshot();
+        if (restored == 0) {
+            restored = preloadMostActive();
+        }
+        log.info("Warmed {} account profiles in {} ms", restored, System.currentTimeMillis() - startMillis);
+
+        if (snapshotPath != null && snapshotIntervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "profile-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::writeSnapshot, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        // Stopped after the listeners, so the final snapshot includes every processed transaction
+        writeSnapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private long restoreSnapshot() {
+        if (snapshotPath == null || !Files.isReadable(snapshotPath)) {
+            return 0;
+        }
+        try {
+            long restored = fraudDetectionService.loadSnapshot(snapshotPath);
+            // The snapshot may have been written while this instance owned other accounts
+            long dropped = accountOwnership.dropUnowned();
+            log.info("Restored {} account profiles from {}, dropped {} owned by other members", restored, snapshotPath, dropped);
+            return restored - dropped;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not restore account profiles from {}, preloading from the database instead", snapshotPath, e);
+            return 0;
+        }
+    }
+
+    private long preloadMostActive() {
+        if (preloadAccounts <= 0) {
+            return 0;
+        }
+        try {
+            Date oneDayAgo = new Date(System.currentTimeMillis() - AccountWindow.WINDOW_MILLIS);
+            List<String> accountIds = new ArrayList<>(transactionRepository.findMostActiveAccounts(oneDayAgo, PageRequest.of(0, preloadAccounts)));
+            accountIds.removeIf(accountId -> accountOwnership.ownerOf(accountId) != null);
+            // Readiness waits for the warm-up, so it may take far longer than a decision's deadline
+            return fraudDetectionService.warmUp(accountIds);
+        } catch (RuntimeException e) {
+            // A cold start is slower, not wrong: profiles are still seeded on first use
+            log.warn("Could not preload account profiles", e);
+            return 0;
+        }
+    }
+
+    private void writeSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        try {
+            long startMillis = System.currentTimeMillis();
+            long written = fraudDetectionService.writeSnapshot(snapshotPath);
+            log.info("Wrote {} account profiles to {} in {} ms", written, snapshotPath, System.currentTimeMillis() - startMillis);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write account profile snapshot to {}", snapshotPath, e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.model.TransactionWindowEntry;
+import com.example.frauddetection.rules.CodeTable;
+import com.example.frauddetection.rules.CompactTransaction;
+import com.example.frauddetection.rules.TransactionCodes;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An account's 24-hour detection state, summarized into one fixed-width record of
+ * {@value #RECORD_BYTES} bytes held by an {@link AccountProfileStore}. The record keeps:
+ * <ul>
+ *   <li>the time and location of the newest transaction,</li>
+ *   <li>up to four currencies with the minute each was last used,</li>
+ *   <li>transaction counts in 15-second buckets covering the last 5 minutes,</li>
+ *   <li>flagged counts in hourly buckets covering the whole window.</li>
+ * </ul>
+ * Bucketed totals include the whole bucket at the old edge of their span, so they may reach up
+ * to one bucket width further back, erring on the side of flagging. Counts saturate at 255 per bucket.
+ * <p>
+ * Instances are reusable views: {@link #attach} points one at a record and every method reads or
+ * writes the record in place, so no per-account objects exist on the heap. Callers must hold
+ * the store's lock for the account while a view is attached to one of its records.
+ */
+public class AccountWindow {
+    public static final long WINDOW_MILLIS = TimeUnit.HOURS.toMillis(24);
+    public static final long RECENT_SPAN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    public static final int RECORD_BYTES = 128;
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long RECENT_BUCKET_MILLIS = TimeUnit.SECONDS.toMillis(15);
+    private static final int RECENT_BUCKETS = (int) (RECENT_SPAN_MILLIS / RECENT_BUCKET_MILLIS) + 1;
+    private static final long WINDOW_BUCKET_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int WINDOW_BUCKETS = (int) (WINDOW_MILLIS / WINDOW_BUCKET_MILLIS) + 1;
+    private static final int CURRENCY_SLOTS = 4;
+    private static final int MAX_BUCKET_COUNT = 0xFF;
+
+    // Record layout, byte offsets
+    static final int KEY = 0;                               // long, 0 marks a free slot
+    static final int LAST_SEEN = 8;                         // long, newest transaction time
+    private static final int LAST_LOCATION = 16;            // int code
+    private static final int SEEDED_SUSPICIOUS = 20;        // int, repository count not placed in buckets
+    private static final int SEEDED_SUSPICIOUS_EXPIRY = 24; // int, epoch minute
+    private static final int RECENT_NEWEST = 28;            // int, newest 15-second bucket
+    private static final int WINDOW_NEWEST = 32;            // int, newest hourly bucket
+    private static final int CURRENCY_CODES = 36;           // int[4]
+    private static final int CURRENCY_MINUTES = CURRENCY_CODES + 4 * CURRENCY_SLOTS; // int[4], epoch minute, 0 = free
+    private static final int RECENT_COUNTS = CURRENCY_MINUTES + 4 * CURRENCY_SLOTS;  // byte[RECENT_BUCKETS]
+    private static final int WINDOW_FLAGGED = RECENT_COUNTS + RECENT_BUCKETS;        // byte[WINDOW_BUCKETS]
+
+    static {
+        if (WINDOW_FLAGGED + WINDOW_BUCKETS > RECORD_BYTES) {
+            throw new ExceptionInInitializerError("AccountWindow layout exceeds " + RECORD_BYTES + " bytes");
+        }
+    }
+
+    private final CompactTransaction seedTransaction = new CompactTransaction();
+    private ByteBuffer records;
+    private int base;
+
+    void attach(ByteBuffer records, int base) {
+        this.records = records;
+        this.base = base;
+    }
+
+    void copyFrom(byte[] record) {
+        records.put(base, record, 0, RECORD_BYTES);
+    }
+
+    void clear(long key) {
+        for (int i = 0; i < RECORD_BYTES; i += Long.BYTES) {
+            records.putLong(base + i, 0);
+        }
+        records.putLong(base + KEY, key);
+    }
+
+    /**
+     * Rewrites the record's interned codes, e.g. after loading it from a snapshot taken by
+     * another process. Codes without a mapping become {@link CodeTable#NONE}.
+     */
+    void remapCodes(int[] locations, int[] currencies) {
+        putInt(LAST_LOCATION, remap(locations, getInt(LAST_LOCATION)));
+        for (int i = 0; i < CURRENCY_SLOTS; i++) {
+            putInt(CURRENCY_CODES + 4 * i, remap(currencies, getInt(CURRENCY_CODES + 4 * i)));
+        }
+    }
+
+    /**
+     * @return the time of the newest transaction, 0 if there is none
+     */
+    public long lastSeenMillis() {
+        return records.getLong(base + LAST_SEEN);
+    }
+
+    /**
+     * Folds the repository's view of the account into a freshly cleared record.
+     *
+     * @param history         the account's transactions in the window, normally in timestamp order
+     * @param suspiciousCount flagged transactions the repository reports for the window; any not
+     *                        in {@code history} are kept for a full window
+     */
+    public void seed(List<TransactionWindowEntry> history, long suspiciousCount, long nowMillis, TransactionCodes codes) {
+        for (TransactionWindowEntry entry : history) {
+            if (entry.timestamp() != null) {
+                append(seedTransaction.load(entry, codes), entry.status());
+            }
+        }
+        long unplaced = Math.max(0, suspiciousCount - sumBuckets(WINDOW_FLAGGED, WINDOW_BUCKETS));
+        putInt(SEEDED_SUSPICIOUS, (int) Math.min(Integer.MAX_VALUE, unplaced));
+        putInt(SEEDED_SUSPICIOUS_EXPIRY, minuteOf(nowMillis + WINDOW_MILLIS));
+    }
+
+    public void append(CompactTransaction transaction, Transaction.TransactionStatus status) {
+        long time = transaction.getTimestampMillis();
+        if (time >= records.getLong(base + LAST_SEEN)) {
+            records.putLong(base + LAST_SEEN, time);
+            putInt(LAST_LOCATION, transaction.getLocation());
+        }
+        useCurrency(transaction.getCurrency(), minuteOf(time));
+        addToBucket(RECENT_NEWEST, RECENT_COUNTS, RECENT_BUCKETS, Math.floorDiv(time, RECENT_BUCKET_MILLIS));
+        if (status == Transaction.TransactionStatus.FLAGGED_SUSPICIOUS) {
+            addToBucket(WINDOW_NEWEST, WINDOW_FLAGGED, WINDOW_BUCKETS, Math.floorDiv(time, WINDOW_BUCKET_MILLIS));
+        }
+    }
+
+    public void evictExpired(long nowMillis) {
+        long cutoff = nowMillis - WINDOW_MILLIS;
+        if (records.getLong(base + LAST_SEEN) < cutoff) {
+            putInt(LAST_LOCATION, CodeTable.NONE);
+        }
+        int cutoffMinute = (int) Math.floorDiv(cutoff, MINUTE_MILLIS);
+        for (int i = 0; i < CURRENCY_SLOTS; i++) {
+            int minute = getInt(CURRENCY_MINUTES + 4 * i);
+            if (minute != 0 && minute < cutoffMinute) {
+                putInt(CURRENCY_MINUTES + 4 * i, 0);
+            }
+        }
+        advance(RECENT_NEWEST, RECENT_COUNTS, RECENT_BUCKETS, Math.floorDiv(nowMillis, RECENT_BUCKET_MILLIS));
+        advance(WINDOW_NEWEST, WINDOW_FLAGGED, WINDOW_BUCKETS, Math.floorDiv(nowMillis, WINDOW_BUCKET_MILLIS));
+        if (getInt(SEEDED_SUSPICIOUS) > 0 && minuteOf(nowMillis) >= getInt(SEEDED_SUSPICIOUS_EXPIRY)) {
+            putInt(SEEDED_SUSPICIOUS, 0);
+        }
+    }
+
+    public long suspiciousCount() {
+        return sumBuckets(WINDOW_FLAGGED, WINDOW_BUCKETS) + getInt(SEEDED_SUSPICIOUS);
+    }
+
+    /**
+     * @return transactions in the last {@link #RECENT_SPAN_MILLIS}
+     */
+    public int recentCount() {
+        return sumBuckets(RECENT_COUNTS, RECENT_BUCKETS);
+    }
+
+    /**
+     * @return the location code of the most recent transaction, or {@link CodeTable#NONE}
+     */
+    public int lastLocation() {
+        return getInt(LAST_LOCATION);
+    }
+
+    public int distinctCurrencies() {
+        int distinct = 0;
+        for (int i = 0; i < CURRENCY_SLOTS; i++) {
+            if (getInt(CURRENCY_MINUTES + 4 * i) != 0) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    public boolean hasCurrency(int currency) {
+        return findCurrency(currency) >= 0;
+    }
+
+    private int findCurrency(int currency) {
+        for (int i = 0; i < CURRENCY_SLOTS; i++) {
+            if (getInt(CURRENCY_MINUTES + 4 * i) != 0 && getInt(CURRENCY_CODES + 4 * i) == currency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void useCurrency(int currency, int minute) {
+        int slot = findCurrency(currency);
+        if (slot >= 0) {
+            if (minute > getInt(CURRENCY_MINUTES + 4 * slot)) {
+                putInt(CURRENCY_MINUTES + 4 * slot, minute);
+            }
+            return;
+        }
+        // Take a free slot, or replace the currency used least recently
+        slot = 0;
+        for (int i = 1; i < CURRENCY_SLOTS && getInt(CURRENCY_MINUTES + 4 * slot) != 0; i++) {
+            if (getInt(CURRENCY_MINUTES + 4 * i) < getInt(CURRENCY_MINUTES + 4 * slot)) {
+                slot = i;
+            }
+        }
+        putInt(CURRENCY_CODES + 4 * slot, currency);
+        putInt(CURRENCY_MINUTES + 4 * slot, minute);
+    }
+
+    private void addToBucket(int newestOffset, int countsOffset, int buckets, long bucket) {
+        long newest = getInt(newestOffset);
+        if (bucket > newest) {
+            advance(newestOffset, countsOffset, buckets, bucket);
+        } else if (bucket <= newest - buckets) {
+            // Older than the span the buckets cover
+            return;
+        }
+        int at = base + countsOffset + (int) Math.floorMod(bucket, (long) buckets);
+        int count = records.get(at) & 0xFF;
+        if (count < MAX_BUCKET_COUNT) {
+            records.put(at, (byte) (count + 1));
+        }
+    }
+
+    /**
+     * Moves the newest bucket forward to {@code bucket}, clearing every bucket it passes.
+     */
+    private void advance(int newestOffset, int countsOffset, int buckets, long bucket) {
+        long newest = getInt(newestOffset);
+        if (bucket <= newest) {
+            return;
+        }
+        if (bucket - newest >= buckets) {
+            for (int i = 0; i < buckets; i++) {
+                records.put(base + countsOffset + i, (byte) 0);
+            }
+        } else {
+            for (long b = newest + 1; b <= bucket; b++) {
+                records.put(base + countsOffset + (int) Math.floorMod(b, (long) buckets), (byte) 0);
+            }
+        }
+        putInt(newestOffset, (int) bucket);
+    }
+
+    private int sumBuckets(int countsOffset, int buckets) {
+        int sum = 0;
+        for (int i = 0; i < buckets; i++) {
+            sum += records.get(base + countsOffset + i) & 0xFF;
+        }
+        return sum;
+    }
+
+    private static int remap(int[] codes, int code) {
+        return code >= 0 && code < codes.length ? codes[code] : CodeTable.NONE;
+    }
+
+    private static int minuteOf(long millis) {
+        // Minute 0 marks a free currency slot, so times at or before the epoch share minute 1
+        return (int) Math.max(1, Math.floorDiv(millis, MINUTE_MILLIS));
+    }
+
+    private int getInt(int offset) {
+        return records.getInt(base + offset);
+    }
+
+    private void putInt(int offset, int value) {
+        records.putInt(base + offset, value);
+    }
+}
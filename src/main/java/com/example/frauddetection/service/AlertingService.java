@@ -1,52 +1,168 @@
 package com.example.frauddetection.service;
 
+import com.example.frauddetection.alerting.Alert;
+import com.example.frauddetection.alerting.AlertSink;
+import com.example.frauddetection.alerting.LogAlertSink;
+import com.example.frauddetection.alerting.MpscRingBuffer;
+import com.example.frauddetection.model.FraudReason;
 import com.example.frauddetection.model.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Counter;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Raises fraud alerts without making the caller wait for delivery. {@link #sendAlert} only
+ * counts the alert, drops repeats for the same account and reason within the de-duplication
+ * window and offers it to a bounded ring buffer; a dedicated dispatcher thread drains the
+ * buffer in batches to every {@link AlertSink}. When the buffer is full the alert is dropped
+ * and counted rather than blocking detection.
+ */
 @Service
-public class AlertingService {
+public class AlertingService implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(AlertingService.class);
     private final Counter fraudulentTransactionsCounter;
-    private final Counter highValueTransactionsCounter;
-    private final Counter suspiciousLocationCounter;
-    private final Counter unusualCurrencyCounter;
+    private final Map<String, Counter> reasonCounters;
+    private final Counter unknownReasonCounter;
+    private final Counter dispatchedCounter;
+    private final Counter droppedCounter;
+    private final Counter deduplicatedCounter;
+    private final Counter sinkFailureCounter;
+
+    private final List<AlertSink> sinks;
+    private final MpscRingBuffer<Alert> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long dedupWindowMillis;
+    private final ConcurrentHashMap<String, Long> lastAlertTimes = new ConcurrentHashMap<>();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
 
     public AlertingService(MeterRegistry registry) {
+        this(registry, List.of(new LogAlertSink()), 8192, 100, 50, 300);
+    }
+
+    @Autowired
+    public AlertingService(MeterRegistry registry,
+                           List<AlertSink> sinks,
+                           @Value("${fraud.alerts.buffer-capacity:8192}") int bufferCapacity,
+                           @Value("${fraud.alerts.batch-size:100}") int batchSize,
+                           @Value("${fraud.alerts.flush-interval-ms:50}") long flushIntervalMillis,
+                           @Value("${fraud.alerts.dedup-window-seconds:300}") long dedupWindowSeconds) {
         this.fraudulentTransactionsCounter = registry.counter("fraud.transactions.total");
-        this.highValueTransactionsCounter = registry.counter("fraud.transactions.high_value");
-        this.suspiciousLocationCounter = registry.counter("fraud.transactions.suspicious_location");
-        this.unusualCurrencyCounter = registry.counter("fraud.transactions.unusual_currency");
+        // One tagged meter for every known reason, registered up front so sendAlert never looks one up
+        Map<String, Counter> counters = new HashMap<>();
+        for (FraudReason reason : FraudReason.values()) {
+            counters.put(reason.name(), registry.counter("fraud.transactions.flagged", "reason", reason.name()));
+        }
+        this.reasonCounters = Map.copyOf(counters);
+        this.unknownReasonCounter = registry.counter("fraud.transactions.flagged", "reason", "UNKNOWN");
+        this.dispatchedCounter = registry.counter("fraud.alerts.dispatched");
+        this.droppedCounter = registry.counter("fraud.alerts.dropped");
+        this.deduplicatedCounter = registry.counter("fraud.alerts.deduplicated");
+        this.sinkFailureCounter = registry.counter("fraud.alerts.sink.failures");
+
+        this.sinks = List.copyOf(sinks);
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.dedupWindowMillis = TimeUnit.SECONDS.toMillis(dedupWindowSeconds);
+        registry.gauge("fraud.alerts.queue.depth", buffer, MpscRingBuffer::size);
+
+        this.dispatcher = new Thread(this::dispatchLoop, "AlertDispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
     }
 
     public void sendAlert(Transaction transaction, String reason) {
         // Increment the total fraudulent transactions counter
         fraudulentTransactionsCounter.increment();
 
-        // Increment specific counters based on the fraud reason
-        switch (reason) {
-            case "HIGH_VALUE":
-                highValueTransactionsCounter.increment();
-                break;
-            case "SUSPICIOUS_LOCATION":
-                suspiciousLocationCounter.increment();
-                break;
-            case "UNUSUAL_CURRENCY":
-                unusualCurrencyCounter.increment();
-                break;
+        reasonCounters.getOrDefault(reason, unknownReasonCounter).increment();
+
+        long now = System.currentTimeMillis();
+        String dedupKey = transaction.getAccountId() + '|' + reason;
+        if (isDuplicate(dedupKey, now)) {
+            deduplicatedCounter.increment();
+            return;
+        }
+        if (!buffer.offer(Alert.of(transaction, reason, now))) {
+            droppedCounter.increment();
+            // A dropped alert was never sent, so it must not suppress the next one
+            if (dedupWindowMillis > 0) {
+                lastAlertTimes.remove(dedupKey, now);
+            }
+        }
+    }
+
+    public int getPendingAlerts() {
+        return buffer.size();
+    }
+
+    /**
+     * Stops the dispatcher after delivering everything already buffered.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private boolean isDuplicate(String dedupKey, long now) {
+        if (dedupWindowMillis <= 0) {
+            return false;
         }
+        boolean[] duplicate = new boolean[1];
+        lastAlertTimes.compute(dedupKey, (key, last) -> {
+            if (last != null && now - last < dedupWindowMillis) {
+                duplicate[0] = true;
+                return last;
+            }
+            return now;
+        });
+        return duplicate[0];
+    }
 
-        // Log detailed alert information
-        log.error("FRAUD ALERT - {} - Transaction Details: ID={}, Account={}, Amount={}, Location={}", 
-            reason,
-            transaction.getId(),
-            transaction.getAccountId(),
-            transaction.getAmount(),
-            transaction.getLocation()
-        );
+    private void dispatchLoop() {
+        List<Alert> batch = new ArrayList<>(batchSize);
+        long nextPurge = System.currentTimeMillis() + dedupWindowMillis;
+        while (running || buffer.size() > 0) {
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            } else {
+                deliver(batch);
+                batch.clear();
+            }
+
+            long now = System.currentTimeMillis();
+            if (dedupWindowMillis > 0 && now >= nextPurge) {
+                lastAlertTimes.values().removeIf(last -> now - last >= dedupWindowMillis);
+                nextPurge = now + dedupWindowMillis;
+            }
+        }
+    }
+
+    private void deliver(List<Alert> batch) {
+        for (AlertSink sink : sinks) {
+            try {
+                sink.deliver(batch);
+            } catch (Exception e) {
+                sinkFailureCounter.increment();
+                log.error("Alert sink {} failed to deliver {} alerts", sink.getClass().getSimpleName(), batch.size(), e);
+            }
+        }
+        dispatchedCounter.increment(batch.size());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.rules.Blocklist;
+import com.example.frauddetection.rules.BlocklistRule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the blocklist file, {@code fraud.blocklist.file}, into the {@link BlocklistRule} before
+ * traffic starts and reloads it whenever its modification time or size changes. A new list is
+ * built next to the current one and swapped in whole, so lookups never see a partial list. A
+ * file that fails to load is rejected and the current list stays in place; a deleted file
+ * empties the list. Files with more than {@code fraud.blocklist.max-entries} entries are rejected,
+ * which bounds the direct memory the old and new list take together during a reload.
+ */
+@Component
+public class BlocklistReloader implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(BlocklistReloader.class);
+    // Before the profile warm-up, with the threshold reloader
+    private static final int PHASE = -100;
+
+    private final BlocklistRule blocklistRule;
+    private final Path path;
+    private final long pollIntervalSeconds;
+    private final long maxEntries;
+    private final Counter appliedCounter;
+    private final Counter rejectedCounter;
+    private String lastVersion = "";
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public BlocklistReloader(BlocklistRule blocklistRule,
+                             MeterRegistry registry,
+                             @Value("${fraud.blocklist.file:}") String path,
+                             @Value("${fraud.blocklist.poll-interval-seconds:60}") long pollIntervalSeconds,
+                             @Value("${fraud.blocklist.max-entries:6000000}") long maxEntries) {
+        this.blocklistRule = blocklistRule;
+        this.path = path.isBlank() ? null : Path.of(path);
+        this.pollIntervalSeconds = pollIntervalSeconds;
+        this.maxEntries = maxEntries;
+        this.appliedCounter = registry.counter("fraud.blocklist.reloads", "result", "applied");
+        this.rejectedCounter = registry.counter("fraud.blocklist.reloads", "result", "rejected");
+        registry.gauge("fraud.blocklist.entries", blocklistRule, rule -> rule.getBlocklist().size());
+        registry.gauge("fraud.blocklist.direct.bytes", blocklistRule, rule -> rule.getBlocklist().directBytes());
+    }
+
+    @Override
+    public void start() {
+        if (path != null) {
+            reload();
+            if (pollIntervalSeconds > 0) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "blocklist-reloader");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                scheduler.scheduleWithFixedDelay(this::reload, pollIntervalSeconds, pollIntervalSeconds, TimeUnit.SECONDS);
+            }
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Loads the file if it changed since it was last loaded.
+     *
+     * @return true if a new blocklist was applied
+     */
+    public synchronized boolean reload() {
+        if (path == null) {
+            return false;
+        }
+        try {
+            String version = "";
+            if (Files.exists(path)) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                version = attributes.lastModifiedTime() + "/" + attributes.size();
+            }
+            if (version.equals(lastVersion)) {
+                return false;
+            }
+            // Remembered before loading, so a rejected file is reported once rather than on every poll
+            lastVersion = version;
+            long startMillis = System.currentTimeMillis();
+            Blocklist blocklist = version.isEmpty() ? Blocklist.EMPTY : Blocklist.load(path, maxEntries);
+            blocklistRule.update(blocklist);
+            appliedCounter.increment();
+            log.info("Loaded {} blocklist entries from {} in {} ms", blocklist.size(), path, System.currentTimeMillis() - startMillis);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            rejectedCounter.increment();
+            log.warn("Rejected blocklist {}, keeping the current one", path, e);
+            return false;
+        } catch (OutOfMemoryError e) {
+            // Usually direct memory: the half-built list is garbage, the current one is intact
+            rejectedCounter.increment();
+            log.error("Out of memory loading blocklist {}, keeping the current one; lower fraud.blocklist.max-entries "
+                + "or raise -XX:MaxDirectMemorySize", path, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.frauddetection.service;
+
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failed calls in a row it
+ * opens and rejects every call for {@code openMillis}. It then lets a single probe through
+ * (half-open): a successful probe closes it again, a failed one reopens it.
+ * <p>
+ * Outcomes are reported with the permit the call was admitted under. Calls that were admitted
+ * before the breaker opened and finish later do not change its state.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    public enum Permit { REJECTED, CALL, PROBE }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private final Consumer<State> listener;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probing;
+
+    public CircuitBreaker(int failureThreshold, long openMillis, Consumer<State> listener) {
+        this(failureThreshold, openMillis, System::nanoTime, listener);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMillis, LongSupplier nanoClock, Consumer<State> listener) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1, was " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openMillis * 1_000_000;
+        this.nanoClock = nanoClock;
+        this.listener = listener;
+    }
+
+    public synchronized Permit tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return Permit.CALL;
+            case OPEN:
+                if (nanoClock.getAsLong() - openedAtNanos < openNanos) {
+                    return Permit.REJECTED;
+                }
+                transition(State.HALF_OPEN);
+                probing = true;
+                return Permit.PROBE;
+            default:
+                // Half-open: only one probe at a time
+                if (probing) {
+                    return Permit.REJECTED;
+                }
+                probing = true;
+                return Permit.PROBE;
+        }
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (permit == Permit.PROBE && state == State.HALF_OPEN) {
+            probing = false;
+            consecutiveFailures = 0;
+            transition(State.CLOSED);
+        } else if (permit == Permit.CALL && state == State.CLOSED) {
+            consecutiveFailures = 0;
+        }
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (permit == Permit.PROBE && state == State.HALF_OPEN) {
+            probing = false;
+            open();
+        } else if (permit == Permit.CALL && state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * Gives back a permit whose call never ran.
+     */
+    public synchronized void release(Permit permit) {
+        if (permit == Permit.PROBE && state == State.HALF_OPEN) {
+            probing = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        openedAtNanos = nanoClock.getAsLong();
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            state = next;
+            listener.accept(next);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+
+import java.util.List;
+
+/**
+ * Inserts straight into the database, so a transaction is durable once its insert commits.
+ */
+public class DirectTransactionWriter implements TransactionWriter {
+    private final TransactionRepository transactionRepository;
+
+    public DirectTransactionWriter(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    @Override
+    public void write(Transaction transaction) {
+        transactionRepository.save(transaction);
+    }
+
+    @Override
+    public void writeAll(List<Transaction> transactions) {
+        transactionRepository.saveAll(transactions);
+    }
+}
@@ -1,60 +1,153 @@
 package com.example.frauddetection.service;
 
+import com.example.frauddetection.model.AccountWindowEntry;
+import com.example.frauddetection.model.FraudVerdict;
 import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.model.TransactionWindowEntry;
 import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.rules.CodeTable;
+import com.example.frauddetection.rules.FraudRule;
+import com.example.frauddetection.rules.HighValueRule;
+import com.example.frauddetection.rules.LocationChangeRule;
+import com.example.frauddetection.rules.RapidSuccessionRule;
+import com.example.frauddetection.rules.RepeatedSuspiciousRule;
+import com.example.frauddetection.rules.RuleContext;
+import com.example.frauddetection.rules.RulePipeline;
+import com.example.frauddetection.rules.RuleThresholds;
+import com.example.frauddetection.rules.ThresholdConfig;
+import com.example.frauddetection.rules.ThresholdTable;
+import com.example.frauddetection.rules.TransactionCodes;
+import com.example.frauddetection.rules.UnusualCurrencyRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.Collections;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
-import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.LongPredicate;
 
 @Service
 public class FraudDetectionService {
     private static final Logger log = LoggerFactory.getLogger(FraudDetectionService.class);
+    private static final int DEFAULT_PROFILE_CAPACITY = 1 << 16;
+    // Keeps the IN list of a bulk load well within database limits
+    private static final int BULK_LOAD_ACCOUNTS = 500;
+    private static final long DEFAULT_DEADLINE_MILLIS = 250;
+
     private final TransactionRepository transactionRepository;
-    private final LoadingCache<String, List<Transaction>> recentTransactionsCache;
-    private final LoadingCache<String, Long> suspiciousTransactionsCache;
+    private final RepositoryGuard repositoryGuard;
+    private final AccountProfileStore profileStore;
+    private final RulePipeline rulePipeline;
+    private final TransactionCodes transactionCodes;
+    private final ThreadLocal<RuleContext> ruleContexts = ThreadLocal.withInitial(RuleContext::new);
+    private final ThreadLocal<AccountWindow> windowViews = ThreadLocal.withInitial(AccountWindow::new);
+    private volatile ThresholdTable thresholdTable;
+    private ThresholdConfig thresholdConfig = ThresholdConfig.EMPTY;
+    private final Timer approvedDecisionTimer;
+    private final Timer flaggedDecisionTimer;
+    private final Timer rejectedDecisionTimer;
+    private final Timer profileLoadTimer;
+    private final Timer profileBulkLoadTimer;
+    private final Counter degradedTimeoutCounter;
+    private final Counter degradedUnavailableCounter;
+    private final Counter degradedErrorCounter;
 
     public FraudDetectionService(TransactionRepository transactionRepository) {
+        this(transactionRepository, List.of(new HighValueRule(), new RepeatedSuspiciousRule(),
+            new RapidSuccessionRule(), new LocationChangeRule(), new UnusualCurrencyRule()),
+            new AccountProfileStore(DEFAULT_PROFILE_CAPACITY), new TransactionCodes(), new SimpleMeterRegistry());
+    }
+
+    public FraudDetectionService(TransactionRepository transactionRepository, List<FraudRule> rules,
+                                 AccountProfileStore profileStore, TransactionCodes transactionCodes,
+                                 MeterRegistry registry) {
+        this(transactionRepository, rules, profileStore, transactionCodes,
+            new RepositoryGuard(new CircuitBreaker(5, 5_000, state -> { }), 64, 1_000), registry);
+    }
+
+    /**
+     * Per-account state lives in {@code profileStore}: seeded from the repository the first time
+     * an account is seen and then kept current by every analyzed transaction, so it is never reloaded.
+     * Seeding queries run through {@code repositoryGuard}, and a decision that cannot get the
+     * account's history by its deadline is made in degraded mode, see {@link #evaluateTransaction(Transaction, long)}.
+     */
+    @Autowired
+    public FraudDetectionService(TransactionRepository transactionRepository, List<FraudRule> rules,
+                                 AccountProfileStore profileStore, TransactionCodes transactionCodes,
+                                 RepositoryGuard repositoryGuard, MeterRegistry registry) {
         this.transactionRepository = transactionRepository;
-        
-        // Cache for recent transactions
-        this.recentTransactionsCache = CacheBuilder.newBuilder()
-            .maximumSize(10000)
-            .expireAfterWrite(1, TimeUnit.HOURS)
-            .build(new CacheLoader<String, List<Transaction>>() {
-                @Override
-                public List<Transaction> load(String accountId) {
-                    Calendar cal = Calendar.getInstance();
-                    cal.add(Calendar.HOUR, -24);
-                    Date oneDayAgo = cal.getTime();
-                    return transactionRepository.findRecentTransactionsByAccount(accountId, oneDayAgo);
-                }
-            });
-
-        // Cache for suspicious transaction counts
-        this.suspiciousTransactionsCache = CacheBuilder.newBuilder()
-            .maximumSize(10000)
-            .expireAfterWrite(1, TimeUnit.HOURS)
-            .build(new CacheLoader<String, Long>() {
-                @Override
-                public Long load(String accountId) {
-                    Calendar cal = Calendar.getInstance();
-                    cal.add(Calendar.HOUR, -24);
-                    Date oneDayAgo = cal.getTime();
-                    return transactionRepository.countRecentSuspiciousTransactions(accountId, oneDayAgo, Transaction.TransactionStatus.FLAGGED_SUSPICIOUS);
-                }
-            });
+        this.repositoryGuard = repositoryGuard;
+        this.profileStore = profileStore;
+        this.transactionCodes = transactionCodes;
+        this.rulePipeline = new RulePipeline(rules, registry);
+        this.approvedDecisionTimer = decisionTimer(registry, "approved");
+        this.flaggedDecisionTimer = decisionTimer(registry, "flagged");
+        this.rejectedDecisionTimer = decisionTimer(registry, "rejected");
+        this.profileLoadTimer = Timer.builder("fraud.account.profiles.load")
+            .description("Time to seed a new account's profile from the repository")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.profileBulkLoadTimer = Timer.builder("fraud.account.profiles.bulk.load")
+            .description("Time to load the histories of up to " + BULK_LOAD_ACCOUNTS + " accounts in one query")
+            .publishPercentileHistogram()
+            .register(registry);
+        FunctionCounter.builder("fraud.account.profiles.lookups", profileStore, AccountProfileStore::getHits)
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("fraud.account.profiles.lookups", profileStore, AccountProfileStore::getMisses)
+            .tag("result", "miss")
+            .register(registry);
+        FunctionCounter.builder("fraud.account.profiles.evictions", profileStore, AccountProfileStore::getEvictions)
+            .register(registry);
+        registry.gauge("fraud.account.profiles.size", profileStore, AccountProfileStore::size);
+        FunctionCounter.builder("fraud.codes.overflows", transactionCodes.currencies(), CodeTable::getOverflows)
+            .tag("table", "currency")
+            .register(registry);
+        FunctionCounter.builder("fraud.codes.overflows", transactionCodes.locations(), CodeTable::getOverflows)
+            .tag("table", "location")
+            .register(registry);
+        FunctionCounter.builder("fraud.codes.overflows", transactionCodes.merchants(), CodeTable::getOverflows)
+            .tag("table", "merchant")
+            .register(registry);
+        this.degradedTimeoutCounter = registry.counter("fraud.decision.degraded", "cause", "timeout");
+        this.degradedUnavailableCounter = registry.counter("fraud.decision.degraded", "cause", "unavailable");
+        this.degradedErrorCounter = registry.counter("fraud.decision.degraded", "cause", "error");
+    }
+
+    /**
+     * Replay instance: no repository, so every account starts with an empty window that only the
+     * replayed transactions fill, and {@code base} stands in for the configured thresholds.
+     */
+    public FraudDetectionService(List<FraudRule> rules, AccountProfileStore profileStore,
+                                 TransactionCodes transactionCodes, RuleThresholds base, MeterRegistry registry) {
+        this(null, rules, profileStore, transactionCodes, registry);
+        this.amountThreshold = base.getAmountThreshold();
+        this.suspiciousTransactionsThreshold = base.getSuspiciousTransactionsThreshold();
+        this.locationChangeThreshold = base.getLocationChangeThreshold();
     }
     
     @Value("${fraud.detection.amount.threshold:1000}")
@@ -66,100 +159,420 @@ public class FraudDetectionService {
     @Value("${fraud.detection.location.change.threshold:500}")
     private BigDecimal locationChangeThreshold;
 
+    // How long a decision may wait for the account's history before it is made in degraded mode
+    @Value("${fraud.detection.deadline-ms:250}")
+    private long deadlineMillis = DEFAULT_DEADLINE_MILLIS;
+
+    // Share of approved decisions logged; flagged ones are always logged
+    @Value("${fraud.logging.approved-sample-rate:0.01}")
+    private double approvedLogSampleRate;
+
     public Transaction.TransactionStatus analyzeTransaction(Transaction transaction) {
-        log.info("Analyzing transaction: {}", transaction);
-        
-        // Check for high-value transactions
-        if (transaction.getAmount() != null && transaction.getAmount().compareTo(amountThreshold) > 0) {
-            log.warn("High-value transaction detected: {}", transaction);
-            return Transaction.TransactionStatus.FLAGGED_SUSPICIOUS;
-        }
-        
-        // Check for multiple suspicious transactions in the last 24 hours using cache
+        return evaluateTransaction(transaction).status();
+    }
+
+    /**
+     * Runs the rule pipeline once and records the transaction in its account window, with the
+     * configured deadline.
+     */
+    public FraudVerdict evaluateTransaction(Transaction transaction) {
+        return evaluateTransaction(transaction, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis));
+    }
+
+    /**
+     * Runs the rule pipeline once and records the transaction in its account window. If the
+     * account is new to this instance and its history cannot be loaded by {@code deadlineNanos}
+     * (a {@link System#nanoTime()} value), because the query is slow, fails or is not attempted,
+     * only the transaction-only rules decide and the verdict is marked partial. The transaction
+     * is then left out of the account's profile; a load that finishes late still seeds it.
+     */
+    public FraudVerdict evaluateTransaction(Transaction transaction, long deadlineNanos) {
+        long startNanos = System.nanoTime();
+        FraudVerdict verdict = evaluate(transaction, deadlineNanos);
+        Timer timer = verdict.isRejected() ? rejectedDecisionTimer : verdict.isFlagged() ? flaggedDecisionTimer : approvedDecisionTimer;
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return verdict;
+    }
+
+    private FraudVerdict evaluate(Transaction transaction, long deadlineNanos) {
+        long now = transaction.getTimestamp() != null ? transaction.getTimestamp().getTime() : System.currentTimeMillis();
+        RuleContext context = ruleContexts.get().reset(transaction, now, thresholdTable(), transactionCodes);
+
+        String accountId = transaction.getAccountId();
+        AccountWindow window = windowViews.get();
+        Object lock = profileStore.lockFor(accountId);
+
+        FraudVerdict verdict = rulePipeline.evaluateTransactionRules(context);
+        if (verdict != null && verdict.isRejected()) {
+            // Rejected outright, the account's profile is left alone
+            logVerdict(transaction, verdict);
+            return verdict;
+        }
+        if (verdict != null) {
+            // Decided without account state: record it only if the account already has a profile,
+            // a new account picks the transaction up from the repository when it is seeded
+            synchronized (lock) {
+                if (profileStore.attach(accountId, window) || (transactionRepository == null && attachOrCreateEmpty(accountId, window, now))) {
+                    window.evictExpired(now);
+                    window.append(context.getCompact(), verdict.status());
+                }
+            }
+            logVerdict(transaction, verdict);
+            return verdict;
+        }
+
+        synchronized (lock) {
+            if (profileStore.attach(accountId, window)) {
+                verdict = evaluateWindowRules(context, window, now);
+            }
+        }
+        if (verdict == null) {
+            // First time this instance sees the account: query outside the lock, it guards a whole segment
+            AccountHistory history = transactionRepository != null ? loadHistory(accountId, deadlineNanos) : new AccountHistory(List.of(), 0, now);
+            if (history == null) {
+                verdict = FraudVerdict.partiallyApproved();
+                logVerdict(transaction, verdict);
+                return verdict;
+            }
+            synchronized (lock) {
+                if (profileStore.attachOrCreate(accountId, window)) {
+                    window.seed(history.entries(), history.suspiciousCount(), history.loadedAtMillis(), transactionCodes);
+                }
+                verdict = evaluateWindowRules(context, window, now);
+            }
+        }
+        logVerdict(transaction, verdict);
+        return verdict;
+    }
+
+    /**
+     * Seeds the profiles of the accounts that have none yet ahead of their next transaction,
+     * with one repository query per {@value #BULK_LOAD_ACCOUNTS} accounts instead of two per account.
+     * Each query may take up to the decision deadline.
+     *
+     * @return the number of profiles created
+     */
+    public int preloadAll(Collection<String> accountIds) {
+        return preloadAll(accountIds, deadlineMillis);
+    }
+
+    /**
+     * @param timeoutMillis how long to wait for each query; profiles whose query answers later are
+     *                      still seeded, but not counted
+     * @return the number of profiles created
+     */
+    public int preloadAll(Collection<String> accountIds, long timeoutMillis) {
+        List<String> missing = missingProfiles(accountIds);
+        int created = 0;
+        for (int from = 0; from < missing.size(); from += BULK_LOAD_ACCOUNTS) {
+            created += preloadChunk(missing.subList(from, Math.min(missing.size(), from + BULK_LOAD_ACCOUNTS)), timeoutMillis);
+        }
+        return created;
+    }
+
+    /**
+     * Seeds the profiles of the accounts that have none yet before traffic starts. The queries run
+     * on the calling thread, outside the repository guard and without the decision timeout, so a
+     * slow database slows the warm-up down instead of opening the circuit breaker decisions use.
+     *
+     * @return the number of profiles created
+     */
+    public int warmUp(Collection<String> accountIds) {
+        List<String> missing = missingProfiles(accountIds);
+        int created = 0;
+        for (int from = 0; from < missing.size(); from += BULK_LOAD_ACCOUNTS) {
+            List<String> chunk = missing.subList(from, Math.min(missing.size(), from + BULK_LOAD_ACCOUNTS));
+            long now = System.currentTimeMillis();
+            created += seedAll(chunk, queryHistories(chunk, now, transactionRepository::findRecentWindowEntriesByAccountsForWarmUp), now);
+        }
+        return created;
+    }
+
+    private List<String> missingProfiles(Collection<String> accountIds) {
+        List<String> missing = new ArrayList<>();
+        for (String accountId : new LinkedHashSet<>(accountIds)) {
+            if (accountId == null) {
+                continue;
+            }
+            synchronized (profileStore.lockFor(accountId)) {
+                if (!profileStore.contains(accountId)) {
+                    missing.add(accountId);
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Waits for the chunk's histories until the deadline. Accounts not seeded by then are left to
+     * their own transactions, which load them again or decide in degraded mode.
+     */
+    private int preloadChunk(List<String> accountIds, long timeoutMillis) {
+        long now = System.currentTimeMillis();
+        List<String> chunk = List.copyOf(accountIds);
+        CompletableFuture<Map<String, List<TransactionWindowEntry>>> load = repositoryGuard.submit(() -> queryHistories(chunk, now, transactionRepository::findRecentWindowEntriesByAccounts));
         try {
-            long recentSuspiciousCount = suspiciousTransactionsCache.get(transaction.getAccountId());
-            if (recentSuspiciousCount >= suspiciousTransactionsThreshold) {
-                log.warn("Multiple suspicious transactions detected for account: {}", transaction.getAccountId());
-                return Transaction.TransactionStatus.FLAGGED_SUSPICIOUS;
+            return seedAll(chunk, await(load, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis)), now);
+        } catch (TimeoutException e) {
+            load.thenAccept(histories -> seedAll(chunk, histories, now));
+            log.warn("Preloading {} account profiles timed out after {} ms", chunk.size(), timeoutMillis);
+        } catch (RuntimeException e) {
+            log.warn("Could not preload {} account profiles: {}", chunk.size(), e.toString());
+        }
+        return 0;
+    }
+
+    private Map<String, List<TransactionWindowEntry>> queryHistories(List<String> accountIds, long now,
+                                                                     BiFunction<Collection<String>, Date, List<AccountWindowEntry>> query) {
+        long startNanos = System.nanoTime();
+        Map<String, List<TransactionWindowEntry>> histories = new HashMap<>();
+        try {
+            Date oneDayAgo = new Date(now - AccountWindow.WINDOW_MILLIS);
+            for (AccountWindowEntry entry : query.apply(accountIds, oneDayAgo)) {
+                histories.computeIfAbsent(entry.accountId(), id -> new ArrayList<>()).add(entry.toWindowEntry());
             }
-        } catch (ExecutionException e) {
-            log.error("Error retrieving suspicious transactions count from cache", e);
+            return histories;
+        } finally {
+            profileBulkLoadTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int seedAll(List<String> accountIds, Map<String, List<TransactionWindowEntry>> histories, long now) {
+        AccountWindow window = windowViews.get();
+        int created = 0;
+        for (String accountId : accountIds) {
+            List<TransactionWindowEntry> entries = histories.getOrDefault(accountId, List.of());
+            long suspiciousCount = 0;
+            for (TransactionWindowEntry entry : entries) {
+                if (entry.status() == Transaction.TransactionStatus.FLAGGED_SUSPICIOUS) {
+                    suspiciousCount++;
+                }
+            }
+            synchronized (profileStore.lockFor(accountId)) {
+                if (profileStore.attachOrCreate(accountId, window)) {
+                    window.seed(entries, suspiciousCount, now, transactionCodes);
+                    created++;
+                }
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Writes every account profile to {@code path}, see {@link AccountProfileSnapshot}.
+     *
+     * @return the number of profiles written
+     */
+    public long writeSnapshot(Path path) throws IOException {
+        return AccountProfileSnapshot.write(profileStore, transactionCodes, path);
+    }
+
+    /**
+     * Restores the profiles in a snapshot written by {@link #writeSnapshot}, skipping accounts
+     * with no transaction in the last 24 hours.
+     *
+     * @return the number of profiles restored
+     */
+    public long loadSnapshot(Path path) throws IOException {
+        return AccountProfileSnapshot.read(profileStore, transactionCodes, path, System.currentTimeMillis());
+    }
+
+    /**
+     * Writes the profiles of the accounts whose key, see {@link AccountProfileStore#keyOf},
+     * matches to {@code out} in the snapshot format, for another instance to {@link #importProfiles}.
+     *
+     * @return the number of profiles written
+     */
+    public long exportProfiles(OutputStream out, LongPredicate accountKeys) throws IOException {
+        return AccountProfileSnapshot.write(profileStore, transactionCodes, out, accountKeys);
+    }
+
+    /**
+     * Adds the profiles written by another instance's {@link #exportProfiles}. A profile this
+     * instance already has, perhaps left from an earlier time it owned the account, is replaced
+     * unless it saw a later transaction.
+     *
+     * @return the number of profiles added or replaced
+     */
+    public long importProfiles(InputStream in) throws IOException {
+        return AccountProfileSnapshot.read(profileStore, transactionCodes, in, "profile handoff", System.currentTimeMillis());
+    }
+
+    /**
+     * Drops the profiles of the accounts whose key matches; they are seeded from the repository
+     * again if this instance sees them later.
+     *
+     * @return the number of profiles removed
+     */
+    public long removeProfiles(LongPredicate accountKeys) {
+        return profileStore.removeIf(accountKeys);
+    }
+
+    /**
+     * Drops the account's profile, like {@link #removeProfiles} for one account.
+     *
+     * @return true if it had one
+     */
+    public boolean removeProfile(String accountId) {
+        synchronized (profileStore.lockFor(accountId)) {
+            return profileStore.remove(accountId);
+        }
+    }
+
+    public boolean hasProfile(String accountId) {
+        synchronized (profileStore.lockFor(accountId)) {
+            return profileStore.contains(accountId);
         }
-        
-        // Check for rapid successive transactions using cache
-        List<Transaction> recentTransactions;
+    }
+
+    private boolean attachOrCreateEmpty(String accountId, AccountWindow window, long now) {
+        if (profileStore.attachOrCreate(accountId, window)) {
+            window.seed(List.of(), 0, now, transactionCodes);
+        }
+        return true;
+    }
+
+    private FraudVerdict evaluateWindowRules(RuleContext context, AccountWindow window, long now) {
+        window.evictExpired(now);
+        context.setWindow(window);
+        FraudVerdict verdict = rulePipeline.evaluateWindowRules(context);
+        window.append(context.getCompact(), verdict.status());
+        context.setWindow(null);
+        return verdict;
+    }
+
+    /**
+     * @return the account's history, or {@code null} if it could not be loaded by the deadline
+     */
+    private AccountHistory loadHistory(String accountId, long deadlineNanos) {
+        CompletableFuture<AccountHistory> load = repositoryGuard.submit(() -> queryHistory(accountId));
         try {
-            recentTransactions = recentTransactionsCache.get(transaction.getAccountId());
+            return await(load, deadlineNanos);
+        } catch (TimeoutException e) {
+            degradedTimeoutCounter.increment();
+            load.thenAccept(history -> seed(accountId, history));
+        } catch (RepositoryUnavailableException e) {
+            degradedUnavailableCounter.increment();
+        } catch (RuntimeException e) {
+            degradedErrorCounter.increment();
+            log.warn("Could not load the history of account {}, deciding in degraded mode: {}", accountId, e.toString());
+        }
+        return null;
+    }
+
+    private void seed(String accountId, AccountHistory history) {
+        AccountWindow window = windowViews.get();
+        synchronized (profileStore.lockFor(accountId)) {
+            if (profileStore.attachOrCreate(accountId, window)) {
+                window.seed(history.entries(), history.suspiciousCount(), history.loadedAtMillis(), transactionCodes);
+            }
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> load, long deadlineNanos) throws TimeoutException {
+        try {
+            return load.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for the repository");
         } catch (ExecutionException e) {
-            log.error("Error retrieving recent transactions from cache", e);
-            recentTransactions = Collections.emptyList();
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
         }
-        
-        if (isRapidSuccessiveTransactions(recentTransactions, transaction)) {
-            log.warn("Rapid successive transactions detected for account: {}", transaction.getAccountId());
-            return Transaction.TransactionStatus.FLAGGED_SUSPICIOUS;
+    }
+
+    private AccountHistory queryHistory(String accountId) {
+        long startNanos = System.nanoTime();
+        try {
+            long now = System.currentTimeMillis();
+            Date oneDayAgo = new Date(now - AccountWindow.WINDOW_MILLIS);
+            List<TransactionWindowEntry> entries = transactionRepository.findRecentWindowEntriesByAccount(accountId, oneDayAgo);
+            long suspiciousCount = transactionRepository.countRecentSuspiciousTransactions(accountId, oneDayAgo, Transaction.TransactionStatus.FLAGGED_SUSPICIOUS);
+            return new AccountHistory(entries, suspiciousCount, now);
+        } finally {
+            profileLoadTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
         }
+    }
+
+    private static Timer decisionTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("fraud.decision.latency")
+            .description("Time to reach a fraud decision, including seeding the account window")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
 
-        // Check for suspicious location changes
-        if (!recentTransactions.isEmpty() && isLocationSuspicious(recentTransactions, transaction)) {
-            log.warn("Suspicious location change detected for account: {}", transaction.getAccountId());
-            return Transaction.TransactionStatus.FLAGGED_SUSPICIOUS;
+    /**
+     * Atomically replaces the threshold overrides. Evaluations in progress finish with the
+     * thresholds they started with.
+     *
+     * @throws IllegalArgumentException if {@code config} holds a negative threshold; the current
+     *                                  thresholds are kept
+     */
+    public void updateThresholds(ThresholdConfig config) {
+        rebuildThresholds(config);
+    }
+
+    public ThresholdConfig getThresholdConfig() {
+        return thresholdTable().getConfig();
+    }
+
+    /**
+     * @return the thresholds from configuration, before any override
+     */
+    public RuleThresholds getBaseThresholds() {
+        return thresholdTable().getBase();
+    }
+
+    private ThresholdTable thresholdTable() {
+        ThresholdTable current = thresholdTable;
+        if (current == null || !current.getBase().isBuiltFrom(amountThreshold, suspiciousTransactionsThreshold, locationChangeThreshold)) {
+            current = rebuildThresholds(null);
         }
+        return current;
+    }
 
-        // Check for unusual currency patterns
-        if (!recentTransactions.isEmpty() && isUnusualCurrencyPattern(recentTransactions, transaction)) {
-            log.warn("Unusual currency pattern detected for account: {}", transaction.getAccountId());
-            return Transaction.TransactionStatus.FLAGGED_SUSPICIOUS;
+    /**
+     * Copy-on-write: the hot path only reads {@link #thresholdTable}, writers serialize here.
+     *
+     * @param config the new overrides, or null to keep the current ones
+     */
+    private synchronized ThresholdTable rebuildThresholds(ThresholdConfig config) {
+        ThresholdConfig overrides = config != null ? config : thresholdConfig;
+        RuleThresholds base = new RuleThresholds(amountThreshold, suspiciousTransactionsThreshold, locationChangeThreshold);
+        ThresholdTable table = ThresholdTable.build(base, overrides, transactionCodes);
+        thresholdConfig = overrides;
+        thresholdTable = table;
+        return table;
+    }
+
+    private record AccountHistory(List<TransactionWindowEntry> entries, long suspiciousCount, long loadedAtMillis) {
+    }
+
+    /**
+     * One key/value event per decision. The values are passed as they are and only rendered on
+     * the logging thread, so the caller never formats the transaction.
+     */
+    private void logVerdict(Transaction transaction, FraudVerdict verdict) {
+        LoggingEventBuilder event;
+        if (verdict.isFlagged()) {
+            event = log.atWarn()
+                .setMessage("{} detected")
+                .addArgument(verdict.primaryReason().getDescription())
+                .addKeyValue("reason", verdict.primaryReason());
+        } else if (approvedLogSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < approvedLogSampleRate
+                && log.isInfoEnabled()) {
+            event = log.atInfo().setMessage("Transaction approved");
+            if (verdict.partial()) {
+                event.addKeyValue("partial", true);
+            }
+        } else {
+            return;
         }
-        
-        return Transaction.TransactionStatus.APPROVED;
+        event.addKeyValue("account", transaction.getAccountId())
+            .addKeyValue("amount", transaction.getAmount())
+            .addKeyValue("currency", transaction.getCurrency())
+            .addKeyValue("merchant", transaction.getMerchantId())
+            .addKeyValue("location", transaction.getLocation())
+            .log();
     }
-    
-    private boolean isRapidSuccessiveTransactions(List<Transaction> recentTransactions, Transaction currentTransaction) {
-        if (recentTransactions.size() < 3) return false;
-        
-        // Sort transactions by timestamp
-        recentTransactions.sort((t1, t2) -> t2.getTimestamp().compareTo(t1.getTimestamp()));
-        
-        // Check if there are 3 or more transactions within 5 minutes
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(currentTransaction.getTimestamp());
-        cal.add(Calendar.MINUTE, -5);
-        Date fiveMinutesAgo = cal.getTime();
-        
-        long rapidTransactions = recentTransactions.stream()
-            .filter(t -> t.getTimestamp().after(fiveMinutesAgo))
-            .count();
-            
-        return rapidTransactions >= 3;
-    }
-
-    private boolean isLocationSuspicious(List<Transaction> recentTransactions, Transaction currentTransaction) {
-        // Get the most recent transaction
-        Transaction lastTransaction = recentTransactions.stream()
-            .max((t1, t2) -> t1.getTimestamp().compareTo(t2.getTimestamp()))
-            .orElse(null);
-
-        if (lastTransaction == null) return false;
-
-        // If locations are different and amount is above threshold, flag as suspicious
-        return !lastTransaction.getLocation().equals(currentTransaction.getLocation()) &&
-               currentTransaction.getAmount().compareTo(locationChangeThreshold) > 0;
-    }
-
-    private boolean isUnusualCurrencyPattern(List<Transaction> recentTransactions, Transaction currentTransaction) {
-        // Check if the current transaction uses a different currency from recent transactions
-        long distinctCurrencies = recentTransactions.stream()
-            .map(Transaction::getCurrency)
-            .distinct()
-            .count();
-
-        // If there are already multiple currencies used recently, and this is a new one, flag as suspicious
-        if (distinctCurrencies >= 2 && 
-            recentTransactions.stream().noneMatch(t -> t.getCurrency().equals(currentTransaction.getCurrency()))) {
-            return true;
-        }
-
-        return false;
-    }
-}
\ No newline at end of file
+}
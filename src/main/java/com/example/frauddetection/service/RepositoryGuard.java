@@ -0,0 +1,83 @@
+package com.example.frauddetection.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the repository queries a decision depends on off the deciding thread, so the caller can
+ * stop waiting at its deadline while the query finishes in the background. Queries pass through
+ * a {@link CircuitBreaker}: failed queries, and ones slower than {@code slowCallMillis}, count as
+ * failures. At most {@code maxConcurrentQueries} run at once; beyond that, and while the breaker
+ * is open, a query fails right away with a {@link RepositoryUnavailableException} instead of
+ * queueing behind a stalled database.
+ */
+public class RepositoryGuard implements AutoCloseable {
+    private final CircuitBreaker circuitBreaker;
+    private final int maxConcurrentQueries;
+    private final Semaphore permits;
+    private final long slowCallNanos;
+    private final ExecutorService executor;
+
+    public RepositoryGuard(CircuitBreaker circuitBreaker, int maxConcurrentQueries, long slowCallMillis) {
+        this.circuitBreaker = circuitBreaker;
+        this.maxConcurrentQueries = maxConcurrentQueries;
+        this.permits = new Semaphore(maxConcurrentQueries);
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("RepositoryQuery-", 0).factory());
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        if (!permits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RepositoryUnavailableException("Too many repository queries in flight"));
+        }
+        CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.Permit.REJECTED) {
+            permits.release();
+            return CompletableFuture.failedFuture(new RepositoryUnavailableException("Repository circuit breaker is open"));
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(query, permit, result));
+        } catch (RuntimeException e) {
+            circuitBreaker.release(permit);
+            permits.release();
+            throw e;
+        }
+        return result;
+    }
+
+    private <T> void run(Supplier<T> query, CircuitBreaker.Permit permit, CompletableFuture<T> result) {
+        long startNanos = System.nanoTime();
+        try {
+            T value = query.get();
+            if (System.nanoTime() - startNanos > slowCallNanos) {
+                circuitBreaker.onFailure(permit);
+            } else {
+                circuitBreaker.onSuccess(permit);
+            }
+            result.complete(value);
+        } catch (Throwable t) {
+            circuitBreaker.onFailure(permit);
+            result.completeExceptionally(t);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    public int getInFlight() {
+        return maxConcurrentQueries - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
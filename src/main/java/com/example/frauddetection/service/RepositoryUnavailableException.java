@@ -0,0 +1,11 @@
+package com.example.frauddetection.service;
+
+/**
+ * A repository query was not attempted, because the circuit breaker is open or too many queries
+ * are already waiting on the database.
+ */
+public class RepositoryUnavailableException extends RuntimeException {
+    public RepositoryUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.ownership.AccountOwnership;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Synchronous scoring for callers that need a decision before they go on, such as a payment
+ * gateway authorizing a card. Decisions use the same {@link FraudDetectionService} and account
+ * profiles as the consumers, and a scored transaction is recorded just like a consumed one.
+ * <p>
+ * The caller waits only for the decision, and at most for its latency budget. Persisting the
+ * transaction and raising its alert happen afterwards, so neither counts against the budget. A
+ * transaction whose caller gave up before its decision started is dropped without touching the
+ * account's profile, so a retry is not counted twice.
+ * <p>
+ * Scoring answers from the instance the caller reached rather than forwarding to the account's
+ * {@link AccountOwnership owner}, which would cost a network hop of the budget. A transaction of
+ * an account owned elsewhere is decided on a profile seeded here, which is dropped again once
+ * decided, so it cannot go stale here, as after a failed forward.
+ */
+@Service
+public class ScoringService {
+    private static final Logger log = LoggerFactory.getLogger(ScoringService.class);
+
+    private final FraudDetectionService fraudDetectionService;
+    private final TransactionWriter transactionWriter;
+    private final AlertingService alertingService;
+    private final Executor scoringExecutor;
+    private final AccountOwnership accountOwnership;
+    private final long budgetNanos;
+    private final long batchBudgetNanos;
+    private final Timer singleTimer;
+    private final Timer batchTimer;
+    private final Counter singleTimeoutCounter;
+    private final Counter batchTimeoutCounter;
+    private final Counter persistFailureCounter;
+
+    public ScoringService(FraudDetectionService fraudDetectionService,
+                          TransactionWriter transactionWriter,
+                          AlertingService alertingService,
+                          @Qualifier("scoringExecutor") Executor scoringExecutor,
+                          AccountOwnership accountOwnership,
+                          MeterRegistry registry,
+                          @Value("${fraud.scoring.budget-ms:8}") long budgetMillis,
+                          @Value("${fraud.scoring.batch.budget-ms:50}") long batchBudgetMillis) {
+        this.fraudDetectionService = fraudDetectionService;
+        this.transactionWriter = transactionWriter;
+        this.alertingService = alertingService;
+        this.scoringExecutor = scoringExecutor;
+        this.accountOwnership = accountOwnership;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.batchBudgetNanos = TimeUnit.MILLISECONDS.toNanos(batchBudgetMillis);
+        this.singleTimer = scoringTimer(registry, "single");
+        this.batchTimer = scoringTimer(registry, "batch");
+        this.singleTimeoutCounter = registry.counter("fraud.scoring.timeouts", "endpoint", "single");
+        this.batchTimeoutCounter = registry.counter("fraud.scoring.timeouts", "endpoint", "batch");
+        this.persistFailureCounter = registry.counter("fraud.scoring.persist.failures");
+    }
+
+    private static Timer scoringTimer(MeterRegistry registry, String endpoint) {
+        return Timer.builder("fraud.scoring.latency")
+            .description("Time from receiving a scoring request until its decisions are ready")
+            .tag("endpoint", endpoint)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    /**
+     * @throws ScoringTimeoutException if no decision was reached within the budget
+     */
+    public FraudVerdict score(Transaction transaction) {
+        long startNanos = System.nanoTime();
+        prepare(transaction);
+        CompletableFuture<FraudVerdict> decided = new CompletableFuture<>();
+        long decisionDeadlineNanos = decisionDeadline(startNanos, budgetNanos);
+        scoringExecutor.execute(() -> decide(List.of(transaction), List.of(decided), decisionDeadlineNanos));
+        try {
+            return await(decided, startNanos + budgetNanos);
+        } catch (TimeoutException e) {
+            singleTimeoutCounter.increment();
+            decided.cancel(false);
+            throw new ScoringTimeoutException("No decision within " + TimeUnit.NANOSECONDS.toMillis(budgetNanos) + " ms");
+        } finally {
+            singleTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Scores the transactions of different accounts in parallel and those of one account in the
+     * order given. Accounts new to this instance are seeded with one query up front.
+     *
+     * @return the verdicts in the order of {@code transactions}
+     * @throws ScoringTimeoutException if not every decision was reached within the batch budget
+     */
+    public List<FraudVerdict> scoreAll(List<Transaction> transactions) {
+        long startNanos = System.nanoTime();
+        Map<String, List<Integer>> byAccount = new LinkedHashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            prepare(transaction);
+            byAccount.computeIfAbsent(transaction.getAccountId(), id -> new ArrayList<>()).add(i);
+        }
+        List<CompletableFuture<FraudVerdict>> pending = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            pending.add(new CompletableFuture<>());
+        }
+        try {
+            long decisionDeadlineNanos = decisionDeadline(startNanos, batchBudgetNanos);
+            fraudDetectionService.preloadAll(byAccount.keySet(), TimeUnit.NANOSECONDS.toMillis(decisionDeadlineNanos - System.nanoTime()));
+            for (List<Integer> indexes : byAccount.values()) {
+                List<Transaction> accountTransactions = new ArrayList<>(indexes.size());
+                List<CompletableFuture<FraudVerdict>> accountVerdicts = new ArrayList<>(indexes.size());
+                for (int index : indexes) {
+                    accountTransactions.add(transactions.get(index));
+                    accountVerdicts.add(pending.get(index));
+                }
+                scoringExecutor.execute(() -> decide(accountTransactions, accountVerdicts, decisionDeadlineNanos));
+            }
+            List<FraudVerdict> verdicts = new ArrayList<>(transactions.size());
+            for (CompletableFuture<FraudVerdict> verdict : pending) {
+                verdicts.add(await(verdict, startNanos + batchBudgetNanos));
+            }
+            return verdicts;
+        } catch (TimeoutException e) {
+            batchTimeoutCounter.increment();
+            // Decisions that have not started yet are skipped
+            pending.forEach(verdict -> verdict.cancel(false));
+            throw new ScoringTimeoutException("Not every decision within " + TimeUnit.NANOSECONDS.toMillis(batchBudgetNanos) + " ms");
+        } finally {
+            batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Decisions fall back to degraded mode a quarter of the budget before it runs out, so a slow
+     * database still gets the caller a partial decision rather than a 503.
+     */
+    private static long decisionDeadline(long startNanos, long budgetNanos) {
+        return startNanos + budgetNanos - budgetNanos / 4;
+    }
+
+    private void prepare(Transaction transaction) {
+        if (transaction.getAccountId() == null || transaction.getAmount() == null) {
+            throw new IllegalArgumentException("accountId and amount are required");
+        }
+        if (transaction.getTimestamp() == null) {
+            transaction.setTimestamp(new Date());
+        }
+        transaction.setId(null);
+        transaction.setStatus(Transaction.TransactionStatus.PENDING);
+    }
+
+    /**
+     * Decides one account's transactions in order, completing each verdict as soon as it is
+     * known, then persists and alerts on what was decided. The account's profile is dropped
+     * afterwards unless this instance owns the account.
+     */
+    private void decide(List<Transaction> transactions, List<CompletableFuture<FraudVerdict>> verdicts, long deadlineNanos) {
+        List<Transaction> decided = new ArrayList<>(transactions.size());
+        List<FraudVerdict> decidedVerdicts = new ArrayList<>(transactions.size());
+        try {
+            for (int i = 0; i < transactions.size(); i++) {
+                CompletableFuture<FraudVerdict> verdict = verdicts.get(i);
+                if (verdict.isDone()) {
+                    // The caller gave up, and a later transaction must not be decided without this one
+                    break;
+                }
+                Transaction transaction = transactions.get(i);
+                try {
+                    FraudVerdict result = fraudDetectionService.evaluateTransaction(transaction, deadlineNanos);
+                    transaction.setStatus(result.status());
+                    decided.add(transaction);
+                    decidedVerdicts.add(result);
+                    verdict.complete(result);
+                } catch (RuntimeException e) {
+                    verdict.completeExceptionally(e);
+                    break;
+                }
+            }
+        } finally {
+            accountOwnership.release(transactions.get(0).getAccountId());
+        }
+        for (int i = decided.size(); i < verdicts.size(); i++) {
+            verdicts.get(i).cancel(false);
+        }
+        if (decided.isEmpty()) {
+            return;
+        }
+        try {
+            transactionWriter.writeAll(decided);
+        } catch (RuntimeException e) {
+            persistFailureCounter.increment();
+            log.error("Failed to persist {} scored transactions", decided.size(), e);
+            return;
+        }
+        for (int i = 0; i < decided.size(); i++) {
+            FraudVerdict verdict = decidedVerdicts.get(i);
+            if (verdict.isFlagged()) {
+                alertingService.sendAlert(decided.get(i), verdict.primaryReason().name());
+            }
+        }
+    }
+
+    private FraudVerdict await(CompletableFuture<FraudVerdict> verdict, long deadlineNanos) throws TimeoutException {
+        try {
+            return verdict.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for a decision");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+}
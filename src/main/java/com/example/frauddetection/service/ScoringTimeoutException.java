@@ -0,0 +1,10 @@
+package com.example.frauddetection.service;
+
+/**
+ * A scoring request did not get its decision within the latency budget.
+ */
+public class ScoringTimeoutException extends RuntimeException {
+    public ScoringTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.rules.ThresholdConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the threshold overrides in {@code fraud.detection.thresholds.file}, a JSON
+ * {@link ThresholdConfig}, and polls the file for changes, so thresholds change without a
+ * restart. Polling the content rather than watching the directory also follows the symlink swap
+ * of a mounted Kubernetes ConfigMap. A file that cannot be parsed or holds a negative threshold
+ * is rejected and the current thresholds stay in place; a deleted file removes all overrides.
+ */
+@Component
+public class ThresholdReloader implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ThresholdReloader.class);
+    // Before the profile warm-up, so no transaction is evaluated with thresholds about to change
+    private static final int PHASE = -100;
+    private static final byte[] NO_FILE = new byte[0];
+
+    private final FraudDetectionService fraudDetectionService;
+    private final ObjectMapper objectMapper;
+    private final Path path;
+    private final long pollIntervalSeconds;
+    private final Counter appliedCounter;
+    private final Counter rejectedCounter;
+    private byte[] lastContent = NO_FILE;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public ThresholdReloader(FraudDetectionService fraudDetectionService,
+                             ObjectMapper objectMapper,
+                             MeterRegistry registry,
+                             @Value("${fraud.detection.thresholds.file:}") String path,
+                             @Value("${fraud.detection.thresholds.poll-interval-seconds:10}") long pollIntervalSeconds) {
+        this.fraudDetectionService = fraudDetectionService;
+        this.objectMapper = objectMapper;
+        this.path = path.isBlank() ? null : Path.of(path);
+        this.pollIntervalSeconds = pollIntervalSeconds;
+        this.appliedCounter = registry.counter("fraud.thresholds.reloads", "result", "applied");
+        this.rejectedCounter = registry.counter("fraud.thresholds.reloads", "result", "rejected");
+    }
+
+    @Override
+    public void start() {
+        if (path != null) {
+            reload();
+            if (pollIntervalSeconds > 0) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "threshold-reloader");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                scheduler.scheduleWithFixedDelay(this::reload, pollIntervalSeconds, pollIntervalSeconds, TimeUnit.SECONDS);
+            }
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Applies the file if its content changed since it was last read.
+     *
+     * @return true if new thresholds were applied
+     */
+    public synchronized boolean reload() {
+        if (path == null) {
+            return false;
+        }
+        try {
+            byte[] content = Files.exists(path) ? Files.readAllBytes(path) : NO_FILE;
+            if (Arrays.equals(content, lastContent)) {
+                return false;
+            }
+            // Remembered before applying, so a rejected file is reported once rather than on every poll
+            lastContent = content;
+            ThresholdConfig config = content.length == 0 ? ThresholdConfig.EMPTY : objectMapper.readValue(content, ThresholdConfig.class);
+            fraudDetectionService.updateThresholds(config);
+            appliedCounter.increment();
+            log.info("Applied rule thresholds from {}: {}", path, config);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            rejectedCounter.increment();
+            log.warn("Rejected rule thresholds in {}, keeping the current ones", path, e);
+            return false;
+        }
+    }
+}
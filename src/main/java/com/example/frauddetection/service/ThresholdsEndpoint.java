@@ -0,0 +1,35 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.rules.ThresholdConfig;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/thresholds}: GET shows the threshold overrides in effect, POST re-reads the
+ * thresholds file right away instead of waiting for the next poll. Served on
+ * {@code management.server.port}, which the load balancer does not expose.
+ */
+@Component
+@Endpoint(id = "thresholds")
+public class ThresholdsEndpoint {
+    private final FraudDetectionService fraudDetectionService;
+    private final ThresholdReloader thresholdReloader;
+
+    public ThresholdsEndpoint(FraudDetectionService fraudDetectionService, ThresholdReloader thresholdReloader) {
+        this.fraudDetectionService = fraudDetectionService;
+        this.thresholdReloader = thresholdReloader;
+    }
+
+    @ReadOperation
+    public ThresholdConfig thresholds() {
+        return fraudDetectionService.getThresholdConfig();
+    }
+
+    @WriteOperation
+    public ThresholdConfig reload() {
+        thresholdReloader.reload();
+        return fraudDetectionService.getThresholdConfig();
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.ownership.AccountOwnership;
+import com.example.frauddetection.ownership.ForwardedTransaction;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides and persists one polled batch for the batch consumers: seeds the profiles of accounts
+ * new to this instance with one bulk query, analyzes every transaction on its account's lane (in
+ * order per account, in parallel across accounts), persists the whole batch with one
+ * {@code writeAll} and only then raises alerts. Returns once the batch is durable, so the caller
+ * can acknowledge it.
+ * <p>
+ * With an {@link AccountOwnership}, transactions of accounts owned by other instances are
+ * forwarded to their owners while the rest are decided here; a group whose owner cannot be
+ * reached is decided here after all, and its profiles are dropped again afterwards.
+ * Transactions that already have a verdict from an earlier attempt stay here, where they were
+ * decided.
+ */
+public class TransactionBatchProcessor {
+    private final FraudDetectionService fraudDetectionService;
+    private final TransactionWriter transactionWriter;
+    private final AlertingService alertingService;
+    private final AccountPartitionedExecutor accountPartitionedExecutor;
+    private final Timer consumerLagTimer;
+    private final AccountOwnership accountOwnership;
+
+    public TransactionBatchProcessor(FraudDetectionService fraudDetectionService,
+                                     TransactionWriter transactionWriter,
+                                     AlertingService alertingService,
+                                     AccountPartitionedExecutor accountPartitionedExecutor,
+                                     Timer consumerLagTimer) {
+        this(fraudDetectionService, transactionWriter, alertingService, accountPartitionedExecutor, consumerLagTimer, null);
+    }
+
+    /**
+     * @param consumerLagTimer null to not record lag, for transactions already timed where they were received
+     * @param accountOwnership null to decide every transaction here
+     */
+    public TransactionBatchProcessor(FraudDetectionService fraudDetectionService,
+                                     TransactionWriter transactionWriter,
+                                     AlertingService alertingService,
+                                     AccountPartitionedExecutor accountPartitionedExecutor,
+                                     Timer consumerLagTimer,
+                                     AccountOwnership accountOwnership) {
+        this.fraudDetectionService = fraudDetectionService;
+        this.transactionWriter = transactionWriter;
+        this.alertingService = alertingService;
+        this.accountPartitionedExecutor = accountPartitionedExecutor;
+        this.consumerLagTimer = consumerLagTimer;
+        this.accountOwnership = accountOwnership;
+    }
+
+    /**
+     * Processes a batch that may have been delivered before, part of which was already decided
+     * by an attempt that failed before the batch was durable. Those transactions are already in
+     * this instance's account profiles, so they keep their earlier verdicts here instead of being
+     * analyzed, or forwarded, and appended a second time.
+     *
+     * @param verdicts one slot per transaction, holding its earlier verdict or null; on return, or
+     *                 when this throws, it also holds every verdict reached here by this attempt,
+     *                 for the caller to keep until the batch is durable
+     */
+    public void process(List<Transaction> transactions, FraudVerdict[] verdicts) {
+        process(transactions, null, verdicts);
+    }
+
+    /**
+     * Like {@link #process(List, FraudVerdict[])}, passing each transaction's message id along
+     * when it is forwarded, so its owner recognises a message it already persisted. A group that
+     * may have reached its owner is not decided here when forwarding fails: this throws instead,
+     * for the messages to be delivered again.
+     *
+     * @param messageIds one per transaction, or null if they did not arrive in messages
+     */
+    public void process(List<Transaction> transactions, List<String> messageIds, FraudVerdict[] verdicts) {
+        for (Transaction transaction : transactions) {
+            recordLag(transaction);
+        }
+        if (accountOwnership == null) {
+            processLocally(transactions, verdicts);
+            return;
+        }
+        List<Integer> local = new ArrayList<>(transactions.size());
+        Map<String, List<Integer>> remote = new LinkedHashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            String owner = verdicts[i] == null ? accountOwnership.ownerOf(transactions.get(i).getAccountId()) : null;
+            if (owner == null) {
+                local.add(i);
+            } else {
+                remote.computeIfAbsent(owner, member -> new ArrayList<>()).add(i);
+            }
+        }
+        List<List<Integer>> groups = new ArrayList<>(remote.size());
+        List<CompletableFuture<Void>> forwarded = new ArrayList<>(remote.size());
+        for (Map.Entry<String, List<Integer>> group : remote.entrySet()) {
+            groups.add(group.getValue());
+            List<ForwardedTransaction> forwardedGroup = new ArrayList<>(group.getValue().size());
+            for (int position : group.getValue()) {
+                forwardedGroup.add(new ForwardedTransaction(messageIds != null ? messageIds.get(position) : null, transactions.get(position)));
+            }
+            forwarded.add(accountOwnership.forward(group.getKey(), forwardedGroup));
+        }
+        // Wait for every group even if one fails, so the caller learns of all verdicts reached here
+        RuntimeException failure = null;
+        if (!local.isEmpty()) {
+            try {
+                processLocally(transactions, verdicts, local);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            try {
+                forwarded.get(i).join();
+            } catch (CompletionException e) {
+                if (!AccountOwnership.unreachable(e)) {
+                    // The owner may have persisted the group, and recognises it when it is forwarded again
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    continue;
+                }
+                List<Integer> group = groups.get(i);
+                try {
+                    processLocally(transactions, verdicts, group);
+                } catch (RuntimeException localFailure) {
+                    if (failure == null) {
+                        failure = localFailure;
+                    }
+                } finally {
+                    for (int position : group) {
+                        accountOwnership.release(transactions.get(position).getAccountId());
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * {@link #processLocally(List, FraudVerdict[])} for the transactions at {@code positions},
+     * copying their verdicts back into {@code verdicts} even when it throws.
+     */
+    private void processLocally(List<Transaction> transactions, FraudVerdict[] verdicts, List<Integer> positions) {
+        FraudVerdict[] selected = new FraudVerdict[positions.size()];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = verdicts[positions.get(i)];
+        }
+        try {
+            processLocally(select(transactions, positions), selected);
+        } finally {
+            for (int i = 0; i < selected.length; i++) {
+                verdicts[positions.get(i)] = selected[i];
+            }
+        }
+    }
+
+    private void processLocally(List<Transaction> transactions, FraudVerdict[] verdicts) {
+        // Seed every account new to this instance with one query rather than two per account
+        Set<String> accountIds = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            accountIds.add(transaction.getAccountId());
+        }
+        fraudDetectionService.preloadAll(accountIds);
+
+        List<CompletableFuture<FraudVerdict>> pending = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            FraudVerdict earlier = verdicts[i];
+            if (earlier != null) {
+                transaction.setStatus(earlier.status());
+                pending.add(CompletableFuture.completedFuture(earlier));
+                continue;
+            }
+            pending.add(accountPartitionedExecutor.submit(transaction.getAccountId(), () -> {
+                FraudVerdict verdict = fraudDetectionService.evaluateTransaction(transaction);
+                transaction.setStatus(verdict.status());
+                return verdict;
+            }));
+        }
+        // Wait for every verdict even if one fails, so the caller learns of all that were recorded
+        RuntimeException failure = null;
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                verdicts[i] = pending.get(i).join();
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        // Save the whole batch with its analysis results in one transaction
+        transactionWriter.writeAll(transactions);
+
+        for (int i = 0; i < transactions.size(); i++) {
+            FraudVerdict verdict = verdicts[i];
+            if (verdict.isFlagged()) {
+                alertingService.sendAlert(transactions.get(i), verdict.primaryReason().name());
+            }
+        }
+    }
+
+    private static List<Transaction> select(List<Transaction> transactions, List<Integer> positions) {
+        List<Transaction> selected = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            selected.add(transactions.get(position));
+        }
+        return selected;
+    }
+
+    private void recordLag(Transaction transaction) {
+        if (consumerLagTimer != null && transaction.getTimestamp() != null) {
+            long lagMillis = System.currentTimeMillis() - transaction.getTimestamp().getTime();
+            consumerLagTimer.record(Math.max(0, lagMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+}
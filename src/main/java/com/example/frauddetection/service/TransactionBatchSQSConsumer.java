@@ -0,0 +1,77 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.ownership.AccountOwnership;
+import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch listener mode: hands every poll to a {@link TransactionBatchProcessor} and only then
+ * returns, so the batch is acknowledged once durable and redelivered if persistence fails.
+ * Transactions of accounts owned by other instances are forwarded to them as part of the batch.
+ * <p>
+ * Transactions decided before a batch failed are already in their account profiles, so their
+ * verdicts are kept by message id until the batch is durable, and the redelivered messages reuse
+ * them rather than being counted twice.
+ */
+@Service
+@ConditionalOnProperty(name = "fraud.consumer.batch.enabled", havingValue = "true")
+public class TransactionBatchSQSConsumer {
+    private static final Logger log = LoggerFactory.getLogger(TransactionBatchSQSConsumer.class);
+    // Far longer than SQS takes to redeliver a failed message, after its visibility timeout
+    private static final Duration VERDICT_RETENTION = Duration.ofHours(1);
+
+    private final TransactionBatchProcessor batchProcessor;
+    private final UndurableVerdicts undurableVerdicts = new UndurableVerdicts(VERDICT_RETENTION);
+
+    public TransactionBatchSQSConsumer(FraudDetectionService fraudDetectionService,
+                                       TransactionWriter transactionWriter,
+                                       AlertingService alertingService,
+                                       AccountPartitionedExecutor accountPartitionedExecutor,
+                                       AccountOwnership accountOwnership,
+                                       MeterRegistry registry) {
+        Timer consumerLagTimer = Timer.builder("fraud.consumer.lag")
+            .description("Time from the transaction timestamp until the consumer picks it up")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.batchProcessor = new TransactionBatchProcessor(fraudDetectionService, transactionWriter, alertingService,
+            accountPartitionedExecutor, consumerLagTimer, accountOwnership);
+    }
+
+    @SqsListener(value = "${aws.sqs.queue.transactions}", maxMessagesPerPoll = "${fraud.consumer.batch.max-messages:10}")
+    public void receiveBatch(List<Message<Transaction>> messages) {
+        log.debug("Received batch of {} transactions from SQS", messages.size());
+        List<String> messageIds = new ArrayList<>(messages.size());
+        List<Transaction> transactions = new ArrayList<>(messages.size());
+        FraudVerdict[] verdicts = new FraudVerdict[messages.size()];
+        for (int i = 0; i < verdicts.length; i++) {
+            messageIds.add(String.valueOf(messages.get(i).getHeaders().getId()));
+            transactions.add(messages.get(i).getPayload());
+            verdicts[i] = undurableVerdicts.get(messageIds.get(i));
+        }
+        try {
+            batchProcessor.process(transactions, messageIds, verdicts);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < verdicts.length; i++) {
+                if (verdicts[i] != null) {
+                    undurableVerdicts.put(messageIds.get(i), verdicts[i]);
+                }
+            }
+            throw e;
+        }
+        for (String messageId : messageIds) {
+            undurableVerdicts.remove(messageId);
+        }
+    }
+}
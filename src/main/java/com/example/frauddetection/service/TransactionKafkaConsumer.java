@@ -0,0 +1,116 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.config.KafkaConsumerConfig;
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Kafka ingestion: producers key records by account id, so all of an account's transactions land
+ * on one partition, in order, and each partition is read by a single consumer. Every poll goes
+ * through the same {@link TransactionBatchProcessor} as the SQS batch listener, and its offsets
+ * are committed only once the batch is durable.
+ * <p>
+ * A batch that fails is redelivered from its first record. Its transactions decided before the
+ * failure are already in their account profiles, so their verdicts are kept by offset until the
+ * batch is durable, and the redelivered records reuse them rather than being counted twice.
+ */
+@Service
+@ConditionalOnProperty(name = "fraud.consumer.kafka.enabled", havingValue = "true")
+public class TransactionKafkaConsumer {
+    private static final Logger log = LoggerFactory.getLogger(TransactionKafkaConsumer.class);
+
+    private final TransactionBatchProcessor batchProcessor;
+    private final Counter undecodableCounter;
+    // Verdicts of records decided but not yet durable, by offset; each partition is polled by one thread at a time
+    private final Map<TopicPartition, ConcurrentSkipListMap<Long, FraudVerdict>> undurableVerdicts = new ConcurrentHashMap<>();
+
+    public TransactionKafkaConsumer(FraudDetectionService fraudDetectionService,
+                                    TransactionWriter transactionWriter,
+                                    AlertingService alertingService,
+                                    AccountPartitionedExecutor accountPartitionedExecutor,
+                                    MeterRegistry registry) {
+        Timer consumerLagTimer = Timer.builder("fraud.consumer.lag")
+            .description("Time from the transaction timestamp until the consumer picks it up")
+            .publishPercentileHistogram()
+            .register(registry);
+        this.batchProcessor = new TransactionBatchProcessor(fraudDetectionService, transactionWriter, alertingService,
+            accountPartitionedExecutor, consumerLagTimer);
+        this.undecodableCounter = registry.counter("fraud.consumer.kafka.undecodable");
+    }
+
+    @KafkaListener(topics = "${fraud.consumer.kafka.topic:transactions}", containerFactory = KafkaConsumerConfig.CONTAINER_FACTORY)
+    public void receiveBatch(List<ConsumerRecord<String, Transaction>> records, Acknowledgment acknowledgment) {
+        List<ConsumerRecord<String, Transaction>> decoded = new ArrayList<>(records.size());
+        List<Transaction> transactions = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Transaction> record : records) {
+            if (record.value() == null) {
+                // Redelivering a record that cannot be decoded would block its partition for good
+                undecodableCounter.increment();
+                log.warn("Skipping undecodable record {}-{} at offset {}", record.topic(), record.partition(), record.offset());
+            } else {
+                decoded.add(record);
+                transactions.add(record.value());
+            }
+        }
+        log.debug("Received batch of {} transactions from Kafka", transactions.size());
+        if (!transactions.isEmpty()) {
+            FraudVerdict[] verdicts = new FraudVerdict[transactions.size()];
+            for (int i = 0; i < verdicts.length; i++) {
+                Map<Long, FraudVerdict> earlier = undurableVerdicts.get(partitionOf(decoded.get(i)));
+                verdicts[i] = earlier != null ? earlier.get(decoded.get(i).offset()) : null;
+            }
+            try {
+                batchProcessor.process(transactions, verdicts);
+            } catch (RuntimeException e) {
+                for (int i = 0; i < verdicts.length; i++) {
+                    if (verdicts[i] != null) {
+                        undurableVerdicts.computeIfAbsent(partitionOf(decoded.get(i)), partition -> new ConcurrentSkipListMap<>())
+                            .put(decoded.get(i).offset(), verdicts[i]);
+                    }
+                }
+                throw e;
+            }
+        }
+        forgetVerdictsUpTo(records);
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Drops the kept verdicts of every offset the batch covered, now that it is durable.
+     */
+    private void forgetVerdictsUpTo(List<ConsumerRecord<String, Transaction>> records) {
+        if (undurableVerdicts.isEmpty()) {
+            return;
+        }
+        Map<TopicPartition, Long> lastOffsets = new HashMap<>();
+        for (ConsumerRecord<String, Transaction> record : records) {
+            lastOffsets.merge(partitionOf(record), record.offset(), Math::max);
+        }
+        lastOffsets.forEach((partition, lastOffset) -> undurableVerdicts.computeIfPresent(partition, (key, verdicts) -> {
+            verdicts.headMap(lastOffset, true).clear();
+            return verdicts.isEmpty() ? null : verdicts;
+        }));
+    }
+
+    private static TopicPartition partitionOf(ConsumerRecord<String, Transaction> record) {
+        return new TopicPartition(record.topic(), record.partition());
+    }
+}
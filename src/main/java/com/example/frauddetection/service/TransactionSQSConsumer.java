@@ -1,76 +1,123 @@
 package com.example.frauddetection.service;
 
+import com.example.frauddetection.model.FraudVerdict;
 import com.example.frauddetection.model.Transaction;
-import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.ownership.AccountOwnership;
+import com.example.frauddetection.ownership.ForwardedTransaction;
 import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Service;
-import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.context.annotation.Bean;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import java.util.concurrent.Executor;
+
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
 
 @Service
-@EnableAsync
+@ConditionalOnProperty(name = "fraud.consumer.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class TransactionSQSConsumer {
     private static final Logger log = LoggerFactory.getLogger(TransactionSQSConsumer.class);
+    // Far longer than SQS takes to redeliver a failed message, after its visibility timeout
+    private static final Duration VERDICT_RETENTION = Duration.ofHours(1);
 
     private final FraudDetectionService fraudDetectionService;
-    private final TransactionRepository transactionRepository;
+    private final TransactionWriter transactionWriter;
     private final AlertingService alertingService;
+    private final AccountPartitionedExecutor accountPartitionedExecutor;
+    private final AccountOwnership accountOwnership;
+    private final Timer consumerLagTimer;
+    private final UndurableVerdicts undurableVerdicts = new UndurableVerdicts(VERDICT_RETENTION);
 
     public TransactionSQSConsumer(FraudDetectionService fraudDetectionService,
-                                TransactionRepository transactionRepository,
-                                AlertingService alertingService) {
+                                TransactionWriter transactionWriter,
+                                AlertingService alertingService,
+                                AccountPartitionedExecutor accountPartitionedExecutor,
+                                AccountOwnership accountOwnership,
+                                MeterRegistry registry) {
         this.fraudDetectionService = fraudDetectionService;
-        this.transactionRepository = transactionRepository;
+        this.transactionWriter = transactionWriter;
         this.alertingService = alertingService;
+        this.accountPartitionedExecutor = accountPartitionedExecutor;
+        this.accountOwnership = accountOwnership;
+        this.consumerLagTimer = Timer.builder("fraud.consumer.lag")
+            .description("Time from the transaction timestamp until the consumer picks it up")
+            .publishPercentileHistogram()
+            .register(registry);
     }
 
-    @Bean(name = "asyncExecutor")
-    public Executor asyncExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(10);
-        executor.setMaxPoolSize(20);
-        executor.setQueueCapacity(500);
-        executor.setThreadNamePrefix("AsyncThread-");
-        executor.initialize();
-        return executor;
+    /**
+     * Hands the message to its account's lane, so transactions of one account are processed
+     * strictly in order while different accounts run in parallel. A transaction of an account
+     * owned by another instance is forwarded there with its message id, and decided here only if
+     * the owner cannot be reached; its profile is then dropped again, so it cannot go stale here.
+     * If forwarding fails otherwise the message fails too, since the owner may have persisted it.
+     * <p>
+     * A message whose transaction was decided but could not be persisted is redelivered by SQS.
+     * Its verdict is kept by message id until then, so the redelivery is not appended to the
+     * account's profile a second time.
+     */
+    @SqsListener(value = "${aws.sqs.queue.transactions}", maxConcurrentMessages = "${fraud.consumer.max-concurrency:10}")
+    public CompletableFuture<Void> receiveMessage(Message<Transaction> message) {
+        Transaction transaction = message.getPayload();
+        String messageId = String.valueOf(message.getHeaders().getId());
+        recordLag(transaction);
+        String owner = accountOwnership.ownerOf(transaction.getAccountId());
+        if (owner != null) {
+            return accountOwnership.forward(owner, List.of(new ForwardedTransaction(messageId, transaction)))
+                .exceptionallyCompose(e -> {
+                    if (!AccountOwnership.unreachable(e)) {
+                        // The owner may have persisted it, and recognises the message when SQS delivers it again
+                        return CompletableFuture.failedFuture(e);
+                    }
+                    return accountPartitionedExecutor.submit(transaction.getAccountId(), () -> {
+                        try {
+                            process(messageId, transaction);
+                        } finally {
+                            accountOwnership.release(transaction.getAccountId());
+                        }
+                        return null;
+                    });
+                });
+        }
+        return accountPartitionedExecutor.submit(transaction.getAccountId(), () -> {
+            process(messageId, transaction);
+            return null;
+        });
     }
 
-    @SqsListener("${aws.sqs.queue.transactions}")
-    @Async("asyncExecutor")
-    public CompletableFuture<Void> receiveMessage(Transaction transaction) {
-        log.info("Received transaction from SQS: {}", transaction);
-        
-        // Analyze the transaction for potential fraud
-        Transaction.TransactionStatus status = fraudDetectionService.analyzeTransaction(transaction);
-        transaction.setStatus(status);
-        
-        // Save the transaction with its analysis result
-        transactionRepository.save(transaction);
-        
-        if (status == Transaction.TransactionStatus.FLAGGED_SUSPICIOUS) {
-            log.warn("Suspicious transaction detected and flagged: {}", transaction);
-            String reason = determineFraudReason(transaction);
-            alertingService.sendAlert(transaction, reason);
+    private void recordLag(Transaction transaction) {
+        if (transaction.getTimestamp() != null) {
+            long lagMillis = System.currentTimeMillis() - transaction.getTimestamp().getTime();
+            consumerLagTimer.record(Math.max(0, lagMillis), TimeUnit.MILLISECONDS);
         }
-
-        return CompletableFuture.completedFuture(null);
     }
 
-    private String determineFraudReason(Transaction transaction) {
-        if (transaction.getAmount().compareTo(new BigDecimal(1000)) > 0) {
-            return "HIGH_VALUE";
-        } else if (!transaction.getLocation().equals(transaction.getPreviousLocation())) {
-            return "SUSPICIOUS_LOCATION";
-        } else if (transaction.getCurrency() != null && !transaction.getCurrency().equals(transaction.getPreviousCurrency())) {
-            return "UNUSUAL_CURRENCY";
+    private void process(String messageId, Transaction transaction) {
+        log.debug("Received transaction for account {} from SQS", transaction.getAccountId());
+
+        // Analyze the transaction for potential fraud, unless an earlier delivery already did
+        FraudVerdict verdict = undurableVerdicts.get(messageId);
+        if (verdict == null) {
+            verdict = fraudDetectionService.evaluateTransaction(transaction);
+        }
+        transaction.setStatus(verdict.status());
+        
+        // Save the transaction with its analysis result
+        try {
+            transactionWriter.write(transaction);
+        } catch (RuntimeException e) {
+            undurableVerdicts.put(messageId, verdict);
+            throw e;
+        }
+        undurableVerdicts.remove(messageId);
+        
+        if (verdict.isFlagged()) {
+            alertingService.sendAlert(transaction, verdict.primaryReason().name());
         }
-        return "UNKNOWN";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.Transaction;
+
+import java.util.List;
+
+/**
+ * Persists analyzed transactions for the consumers. Both methods return once the transactions
+ * are durable, so a message acknowledged afterwards is never lost.
+ */
+public interface TransactionWriter {
+
+    void write(Transaction transaction);
+
+    void writeAll(List<Transaction> transactions);
+}
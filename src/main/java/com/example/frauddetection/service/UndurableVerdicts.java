@@ -0,0 +1,77 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.FraudVerdict;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verdicts of messages that were decided but not persisted, by message id. Deciding a
+ * transaction appends it to its account's profile, so when the message is delivered again its
+ * verdict is reused rather than deciding, and counting, the transaction a second time. An entry
+ * is dropped once its message is durable, or after {@code retention} if the message is not
+ * delivered again, for example because the queue moved it to its dead-letter queue.
+ * <p>
+ * A receiver that may see a message again even after persisting it can mark it durable instead,
+ * and skip it while {@link #isDurable} says so.
+ */
+public class UndurableVerdicts {
+    private final ConcurrentHashMap<String, Entry> verdicts = new ConcurrentHashMap<>();
+    private final long retentionMillis;
+    private volatile long nextPurgeMillis;
+
+    public UndurableVerdicts(Duration retention) {
+        this.retentionMillis = retention.toMillis();
+    }
+
+    /**
+     * @return the verdict kept for the message, or null
+     */
+    public FraudVerdict get(String messageId) {
+        Entry entry = verdicts.get(messageId);
+        return entry != null && entry.expiresAtMillis() > System.currentTimeMillis() ? entry.verdict() : null;
+    }
+
+    /**
+     * @return true if the message was marked durable within the retention
+     */
+    public boolean isDurable(String messageId) {
+        Entry entry = verdicts.get(messageId);
+        return entry != null && entry.verdict() == null && entry.expiresAtMillis() > System.currentTimeMillis();
+    }
+
+    public void put(String messageId, FraudVerdict verdict) {
+        store(messageId, verdict);
+    }
+
+    /**
+     * Replaces the message's verdict by a mark that it is durable, kept for the retention.
+     */
+    public void markDurable(String messageId) {
+        store(messageId, null);
+    }
+
+    /**
+     * Forgets the message's verdict, once the message is durable.
+     */
+    public void remove(String messageId) {
+        verdicts.remove(messageId);
+    }
+
+    private void store(String messageId, FraudVerdict verdict) {
+        long now = System.currentTimeMillis();
+        if (now >= nextPurgeMillis) {
+            nextPurgeMillis = now + retentionMillis / 4;
+            verdicts.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        }
+        verdicts.put(messageId, new Entry(verdict, now + retentionMillis));
+    }
+
+    public int size() {
+        return verdicts.size();
+    }
+
+    // A null verdict marks a durable message
+    private record Entry(FraudVerdict verdict, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.frauddetection.controller;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.ownership.ForwardedTransaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.service.AccountPartitionedExecutor;
+import com.example.frauddetection.service.AlertingService;
+import com.example.frauddetection.service.DirectTransactionWriter;
+import com.example.frauddetection.service.FraudDetectionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OwnershipControllerTest {
+    private static final String SECRET = "members-only";
+
+    @Mock
+    private FraudDetectionService fraudDetectionService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AlertingService alertingService;
+
+    private OwnershipController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new OwnershipController(fraudDetectionService, new DirectTransactionWriter(transactionRepository), alertingService,
+            new AccountPartitionedExecutor(Runnable::run, 4), null, SECRET, 300);
+    }
+
+    @Test
+    void whenPersistedMessageIsForwardedAgain_thenItIsSkipped() {
+        // Arrange
+        Transaction transaction = transaction("ACC1", "100");
+        when(fraudDetectionService.evaluateTransaction(transaction)).thenReturn(FraudVerdict.approved());
+        controller.receiveTransactions(SECRET, List.of(new ForwardedTransaction("m1", transaction)));
+
+        // Act
+        controller.receiveTransactions(SECRET, List.of(new ForwardedTransaction("m1", transaction)));
+
+        // Assert
+        verify(fraudDetectionService, times(1)).evaluateTransaction(transaction);
+        verify(transactionRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void whenMessageIsForwardedAgainAfterItsWriteFailed_thenItsVerdictIsReused() {
+        // Arrange
+        Transaction suspicious = transaction("ACC1", "2000");
+        when(fraudDetectionService.evaluateTransaction(suspicious)).thenReturn(FraudVerdict.flagged(FraudReason.HIGH_VALUE, 2.0));
+        when(transactionRepository.saveAll(List.of(suspicious))).thenThrow(new IllegalStateException("database unavailable")).thenReturn(List.of(suspicious));
+        assertThrows(IllegalStateException.class, () -> controller.receiveTransactions(SECRET, List.of(new ForwardedTransaction("m1", suspicious))));
+
+        // Act
+        controller.receiveTransactions(SECRET, List.of(new ForwardedTransaction("m1", suspicious)));
+
+        // Assert
+        verify(fraudDetectionService, times(1)).evaluateTransaction(suspicious);
+        verify(transactionRepository, times(2)).saveAll(List.of(suspicious));
+        verify(alertingService, times(1)).sendAlert(eq(suspicious), eq("HIGH_VALUE"));
+    }
+
+    @Test
+    void whenSecretIsWrong_thenNothingIsDecided() {
+        // Arrange
+        Transaction transaction = transaction("ACC1", "100");
+
+        // Act & Assert
+        assertThrows(SecurityException.class, () -> controller.receiveTransactions("guess", List.of(new ForwardedTransaction("m1", transaction))));
+        verify(fraudDetectionService, never()).evaluateTransaction(transaction);
+    }
+
+    private Transaction transaction(String accountId, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setTimestamp(new Date());
+        transaction.setLocation("TestLocation");
+        transaction.setCurrency("USD");
+        return transaction;
+    }
+}
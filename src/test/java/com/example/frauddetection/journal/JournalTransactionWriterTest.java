@@ -0,0 +1,67 @@
+package com.example.frauddetection.journal;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JournalTransactionWriterTest {
+    private static final int SEGMENT_BYTES = 4096;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void whenDatabaseRejectsOneRow_thenItIsDeadLetteredAndTheRestAreInserted(@TempDir Path dir) throws Exception {
+        // Arrange
+        List<String> inserted = new ArrayList<>();
+        when(transactionRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("value too long"));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction transaction = invocation.getArgument(0);
+            if (transaction.getAccountId().equals("POISON")) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            inserted.add(transaction.getAccountId());
+            return transaction;
+        });
+        JournalTransactionWriter writer = new JournalTransactionWriter(new TransactionJournal(dir, SEGMENT_BYTES, 1 << 20),
+            new TransactionJournal(dir.resolve("dead-letters"), SEGMENT_BYTES, Long.MAX_VALUE),
+            transactionRepository, new SimpleMeterRegistry(), 10, 0);
+
+        // Act
+        writer.writeAll(List.of(transaction("ACC1"), transaction("POISON"), transaction("ACC2")));
+        writer.close();
+
+        // Assert
+        assertEquals(List.of("ACC1", "ACC2"), inserted);
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES, 1 << 20)) {
+            assertEquals(0, journal.getBacklogBytes());
+        }
+        try (TransactionJournal deadLetters = new TransactionJournal(dir.resolve("dead-letters"), SEGMENT_BYTES, Long.MAX_VALUE)) {
+            List<Transaction> rejected = deadLetters.read(deadLetters.getCheckpoint(), 10).transactions();
+            assertEquals(List.of("POISON"), rejected.stream().map(Transaction::getAccountId).toList());
+        }
+    }
+
+    private static Transaction transaction(String accountId) {
+        return new Transaction(null, accountId, BigDecimal.TEN, "USD", new Date(1_700_000_000_000L),
+            "MERCH1", "New York", Transaction.TransactionStatus.APPROVED);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.frauddetection.journal;
+
+import com.example.frauddetection.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionJournalTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @Test
+    void whenJournalIsReopened_thenUncommittedTransactionsAreReplayedAcrossSegments(@TempDir Path dir) throws Exception {
+        // Arrange
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            transactions.add(transaction("ACC" + i, new BigDecimal("12.3" + i % 10)));
+        }
+        transactions.get(7).setMerchantId(null);
+        long committed;
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES, 1 << 20)) {
+            CompletableFuture<Void> synced = journal.appendAll(transactions);
+            assertTrue(journal.sync(0));
+            assertTrue(synced.isDone());
+            TransactionJournal.Batch first = journal.read(journal.getCheckpoint(), 50);
+            journal.commit(first.end());
+            committed = first.end();
+        }
+
+        // Act
+        List<Transaction> replayed = new ArrayList<>();
+        long segments;
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES, 1 << 20)) {
+            assertEquals(committed, journal.getCheckpoint());
+            for (TransactionJournal.Batch batch = journal.read(journal.getCheckpoint(), 64);
+                 !batch.transactions().isEmpty();
+                 batch = journal.read(batch.end(), 64)) {
+                replayed.addAll(batch.transactions());
+            }
+            try (var files = Files.list(dir)) {
+                segments = files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+            }
+        }
+
+        // Assert
+        assertEquals(150, replayed.size());
+        for (int i = 0; i < replayed.size(); i++) {
+            Transaction expected = transactions.get(50 + i);
+            Transaction actual = replayed.get(i);
+            assertEquals(expected.getAccountId(), actual.getAccountId());
+            assertEquals(expected.getAmount(), actual.getAmount());
+            assertEquals(expected.getTimestamp(), actual.getTimestamp());
+            assertEquals(expected.getMerchantId(), actual.getMerchantId());
+            assertEquals(expected.getStatus(), actual.getStatus());
+        }
+        assertTrue(segments > 1, "the test should span several segments");
+    }
+
+    @Test
+    void whenTailRecordIsTorn_thenRecoveryStopsBeforeIt(@TempDir Path dir) throws Exception {
+        // Arrange
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES, 1 << 20)) {
+            journal.append(transaction("ACC1", BigDecimal.TEN));
+            journal.append(transaction("ACC2", BigDecimal.ONE));
+            journal.sync(0);
+        }
+        Path segment = dir.resolve(String.format("segment-%020d.log", 0));
+        byte[] bytes = Files.readAllBytes(segment);
+        // Corrupt the last byte of the second record's payload
+        int secondRecord = 8 + ByteBuffer.wrap(bytes).getInt(0);
+        int secondLength = ByteBuffer.wrap(bytes).getInt(secondRecord);
+        bytes[secondRecord + 8 + secondLength - 1] ^= 1;
+        Files.write(segment, bytes);
+
+        // Act
+        List<Transaction> recovered;
+        try (TransactionJournal journal = new TransactionJournal(dir, SEGMENT_BYTES, 1 << 20)) {
+            journal.append(transaction("ACC3", BigDecimal.ONE));
+            journal.sync(0);
+            recovered = journal.read(journal.getCheckpoint(), 10).transactions();
+        }
+
+        // Assert
+        assertEquals(List.of("ACC1", "ACC3"), recovered.stream().map(Transaction::getAccountId).toList());
+    }
+
+    private static Transaction transaction(String accountId, BigDecimal amount) {
+        return new Transaction(null, accountId, amount, "USD", new Date(1_700_000_000_000L),
+            "MERCH1", "New York", Transaction.TransactionStatus.APPROVED);
+    }
+}
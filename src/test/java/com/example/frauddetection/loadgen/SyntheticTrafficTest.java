@@ -0,0 +1,51 @@
+package com.example.frauddetection.loadgen;
+
+import com.example.frauddetection.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticTrafficTest {
+
+    @Test
+    void whenTrafficIsGenerated_thenHotAccountsDominateAndTheStreamIsRepeatable() {
+        // Arrange
+        SyntheticTraffic traffic = new SyntheticTraffic(10_000, 7);
+        SyntheticTraffic replay = new SyntheticTraffic(10_000, 7);
+        Map<String, Integer> perAccount = new HashMap<>();
+        Set<String> currencies = new HashSet<>();
+        Set<String> locations = new HashSet<>();
+        int sameAccountRuns = 0;
+        String previousAccount = null;
+
+        // Act
+        for (int i = 0; i < 100_000; i++) {
+            Transaction transaction = traffic.next(1_700_000_000_000L + i);
+            Transaction repeated = replay.next(1_700_000_000_000L + i);
+            assertEquals(transaction.getAccountId(), repeated.getAccountId());
+            assertEquals(transaction.getAmount(), repeated.getAmount());
+            perAccount.merge(transaction.getAccountId(), 1, Integer::sum);
+            currencies.add(transaction.getCurrency());
+            locations.add(transaction.getLocation());
+            if (transaction.getAccountId().equals(previousAccount)) {
+                sameAccountRuns++;
+            }
+            previousAccount = transaction.getAccountId();
+        }
+
+        // Assert
+        List<Integer> counts = perAccount.values().stream().sorted((a, b) -> b - a).toList();
+        int hottestHundred = counts.stream().limit(100).mapToInt(Integer::intValue).sum();
+        assertTrue(hottestHundred > 40_000, "top 1% of accounts should carry a large share, was " + hottestHundred);
+        assertTrue(perAccount.size() > 5_000, "most accounts should still be seen, was " + perAccount.size());
+        assertTrue(currencies.size() > 5);
+        assertTrue(locations.size() > 5);
+        assertTrue(sameAccountRuns > 1_000, "bursts should produce back-to-back transactions, was " + sameAccountRuns);
+    }
+}
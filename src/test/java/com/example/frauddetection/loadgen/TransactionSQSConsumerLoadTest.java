@@ -0,0 +1,106 @@
+package com.example.frauddetection.loadgen;
+
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.CreateQueueRequest;
+import com.example.frauddetection.config.TestConfig;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.testcontainers.containers.localstack.LocalStackContainer.Service.SQS;
+
+/**
+ * End-to-end throughput through {@code TransactionSQSConsumer} with real SQS (LocalStack) and the
+ * in-memory database. Takes a minute, so it only runs with {@code -Dfraud.loadtest=true}; set
+ * {@code -Dfraud.loadtest.rate} and {@code -Dfraud.loadtest.seconds} to change the load.
+ */
+@SpringBootTest(properties = {
+    "management.metrics.distribution.percentiles.fraud.decision.latency=0.5,0.99,0.999",
+    "management.metrics.distribution.percentiles.fraud.consumer.lag=0.5,0.99,0.999",
+    "logging.level.com.example.frauddetection=WARN",
+    "logging.level.com.example.frauddetection.loadgen.TransactionSQSConsumerLoadTest=INFO"
+})
+@Testcontainers
+@Import(TestConfig.class)
+@EnabledIfSystemProperty(named = "fraud.loadtest", matches = "true")
+class TransactionSQSConsumerLoadTest {
+    private static final Logger log = LoggerFactory.getLogger(TransactionSQSConsumerLoadTest.class);
+
+    private static final String QUEUE_NAME = "load-test-fraud-detection-queue";
+
+    @Container
+    static LocalStackContainer localStack = new LocalStackContainer(DockerImageName.parse("localstack/localstack:2.1"))
+            .withServices(SQS);
+
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.aws.credentials.access-key", () -> "test");
+        registry.add("spring.cloud.aws.credentials.secret-key", () -> "test");
+        registry.add("spring.cloud.aws.region.static", () -> localStack.getRegion());
+        registry.add("spring.cloud.aws.sqs.endpoint", () -> localStack.getEndpointOverride(SQS).toString());
+        registry.add("aws.sqs.queue.transactions", () -> QUEUE_NAME);
+    }
+
+    @Autowired
+    private SqsTemplate sqsTemplate;
+
+    @Autowired
+    private AmazonSQS amazonSQS;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void whenSkewedTrafficIsSentAtTheTargetRate_thenConsumersKeepUp() throws Exception {
+        // Arrange
+        amazonSQS.createQueue(new CreateQueueRequest(QUEUE_NAME));
+        double rate = Double.parseDouble(System.getProperty("fraud.loadtest.rate", "200"));
+        Duration duration = Duration.ofSeconds(Long.getLong("fraud.loadtest.seconds", 30));
+        LoadGenerator generator = new LoadGenerator(sqsTemplate, QUEUE_NAME, new SyntheticTraffic(10_000, 42), 32);
+        long processedBefore = processed();
+
+        // Act
+        long startNanos = System.nanoTime();
+        LoadGenerator.Result result = generator.run(rate, duration);
+        long backlogAtEnd = Math.max(0, result.sent() - (processed() - processedBefore));
+        await().atMost(Duration.ofMinutes(2)).until(() -> processed() >= processedBefore + result.sent());
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        // Assert
+        long processed = processed() - processedBefore;
+        LoadTestReport report = new LoadTestReport(rate, result.sent(), result.failed(), result.getSentPerSecond(),
+            processed, elapsedMillis, elapsedMillis == 0 ? 0 : processed * 1000.0 / elapsedMillis, backlogAtEnd, true,
+            LoadTestReport.Percentiles.of(registry.find("fraud.consumer.lag").timer()),
+            LoadTestReport.Percentiles.of(registry.find("fraud.decision.latency").tag("outcome", "approved").timer()),
+            LoadTestReport.Percentiles.of(registry.find("fraud.decision.latency").tag("outcome", "flagged").timer()));
+        log.info("{}", report.summary());
+        assertEquals(0, result.failed());
+        assertTrue(result.sent() >= rate * duration.toSeconds() * 0.9, "generator fell short of the target rate");
+        assertTrue(processed >= result.sent());
+    }
+
+    private long processed() {
+        long processed = 0;
+        for (Timer timer : registry.find("fraud.decision.latency").timers()) {
+            processed += timer.count();
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.frauddetection.ownership;
+
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.rules.HighValueRule;
+import com.example.frauddetection.rules.RuleThresholds;
+import com.example.frauddetection.rules.TransactionCodes;
+import com.example.frauddetection.service.AccountProfileStore;
+import com.example.frauddetection.service.AlertingService;
+import com.example.frauddetection.service.FraudDetectionService;
+import com.example.frauddetection.service.ScoringService;
+import com.example.frauddetection.service.TransactionWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Several instances in one JVM, connected by an in-memory transport instead of HTTP.
+ */
+class AccountOwnershipTest {
+    private static final int ACCOUNTS = 300;
+
+    private final Map<String, Node> nodes = new HashMap<>();
+    private List<String> members = List.of();
+
+    @Test
+    void whenTransactionsArriveAtAnyMember_thenEachAccountIsDecidedOnItsOwner() {
+        // Arrange
+        Node a = node("http://a");
+        node("http://b");
+        node("http://c");
+        join("http://a", "http://b", "http://c");
+
+        // Act
+        for (int i = 0; i < ACCOUNTS; i++) {
+            receive(a, transaction("ACC" + i));
+        }
+
+        // Assert
+        assertEachProfileOnlyOnItsOwner();
+        assertTrue(a.forwarded > 0);
+    }
+
+    @Test
+    void whenMemberJoins_thenProfilesOfMovedAccountsAreHandedOffToIt() {
+        // Arrange
+        Node a = node("http://a");
+        node("http://b");
+        join("http://a", "http://b");
+        for (int i = 0; i < ACCOUNTS; i++) {
+            receive(a, transaction("ACC" + i));
+        }
+        Node c = node("http://c");
+
+        // Act
+        join("http://a", "http://b", "http://c");
+
+        // Assert
+        assertEachProfileOnlyOnItsOwner();
+        assertTrue(c.received > 0);
+        assertEquals(c.received, countProfiles(c));
+    }
+
+    @Test
+    void whenMemberLeaves_thenItsProfilesMoveToTheRemainingMembers() {
+        // Arrange
+        Node a = node("http://a");
+        node("http://b");
+        Node c = node("http://c");
+        join("http://a", "http://b", "http://c");
+        for (int i = 0; i < ACCOUNTS; i++) {
+            receive(a, transaction("ACC" + i));
+        }
+        long ownedByC = countProfiles(c);
+
+        // Act
+        c.ownership.leave();
+        nodes.remove("http://c");
+        join("http://a", "http://b");
+
+        // Assert
+        assertTrue(ownedByC > 0);
+        assertEquals(0, countProfiles(c));
+        assertEachProfileOnlyOnItsOwner();
+    }
+
+    @Test
+    void whenTransactionIsDecidedHereAfterForwardingFails_thenItsProfileIsDroppedAgain() {
+        // Arrange
+        Node a = node("http://a");
+        node("http://b");
+        join("http://a", "http://b");
+        String accountId = accountOwnedBy("http://b");
+        a.service.evaluateTransaction(transaction(accountId));
+
+        // Act
+        a.ownership.release(accountId);
+
+        // Assert
+        assertFalse(a.service.hasProfile(accountId));
+    }
+
+    @Test
+    void whenTransactionIsScoredOnAnotherMember_thenItsProfileStaysOnlyOnItsOwner() {
+        // Arrange
+        Node a = node("http://a");
+        Node b = node("http://b");
+        join("http://a", "http://b");
+        String accountId = accountOwnedBy("http://b");
+        receive(a, transaction(accountId));
+        List<Transaction> persisted = new ArrayList<>();
+        ScoringService scoringService = new ScoringService(a.service, new TransactionWriter() {
+            @Override
+            public void write(Transaction transaction) {
+                persisted.add(transaction);
+            }
+
+            @Override
+            public void writeAll(List<Transaction> transactions) {
+                persisted.addAll(transactions);
+            }
+        }, new AlertingService(new SimpleMeterRegistry()), Runnable::run, a.ownership, new SimpleMeterRegistry(), 1000, 1000);
+
+        // Act
+        FraudVerdict verdict = scoringService.score(transaction(accountId));
+
+        // Assert
+        assertFalse(verdict.isFlagged());
+        assertEquals(1, persisted.size());
+        assertFalse(a.service.hasProfile(accountId));
+        assertTrue(b.service.hasProfile(accountId));
+    }
+
+    private Node node(String url) {
+        FraudDetectionService service = new FraudDetectionService(List.of(new HighValueRule()), new AccountProfileStore(4096),
+            new TransactionCodes(), new RuleThresholds(new BigDecimal("1000"), 3, new BigDecimal("500")), new SimpleMeterRegistry());
+        Node node = new Node(service);
+        node.ownership = new AccountOwnership(url, () -> members, new InMemoryTransport(node), service, new SimpleMeterRegistry(), 64, 0);
+        nodes.put(url, node);
+        return node;
+    }
+
+    private void join(String... urls) {
+        members = List.of(urls);
+        for (String url : urls) {
+            nodes.get(url).ownership.refresh();
+        }
+    }
+
+    private void receive(Node node, Transaction transaction) {
+        String owner = node.ownership.ownerOf(transaction.getAccountId());
+        if (owner != null) {
+            node.ownership.forward(owner, List.of(new ForwardedTransaction(null, transaction))).join();
+        } else {
+            node.service.evaluateTransaction(transaction);
+        }
+    }
+
+    private void assertEachProfileOnlyOnItsOwner() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String accountId = "ACC" + i;
+            for (Map.Entry<String, Node> node : nodes.entrySet()) {
+                String owner = node.getValue().ownership.getRing().ownerOf(accountId);
+                assertEquals(owner.equals(node.getKey()), node.getValue().service.hasProfile(accountId), accountId + " on " + node.getKey());
+            }
+        }
+    }
+
+    private String accountOwnedBy(String url) {
+        for (int i = 0; ; i++) {
+            if (nodes.get(url).ownership.getRing().ownerOf("ACC" + i).equals(url)) {
+                return "ACC" + i;
+            }
+        }
+    }
+
+    private static long countProfiles(Node node) {
+        long count = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            if (node.service.hasProfile("ACC" + i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Transaction transaction(String accountId) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(new BigDecimal("100"));
+        transaction.setLocation("London");
+        transaction.setCurrency("USD");
+        transaction.setTimestamp(new Date());
+        return transaction;
+    }
+
+    private static final class Node {
+        final FraudDetectionService service;
+        AccountOwnership ownership;
+        int forwarded;
+        long received;
+
+        Node(FraudDetectionService service) {
+            this.service = service;
+        }
+    }
+
+    private final class InMemoryTransport implements OwnershipTransport {
+        private final Node sender;
+
+        InMemoryTransport(Node sender) {
+            this.sender = sender;
+        }
+
+        @Override
+        public CompletableFuture<Void> forward(String member, List<ForwardedTransaction> transactions) {
+            sender.forwarded += transactions.size();
+            transactions.forEach(forwarded -> nodes.get(member).service.evaluateTransaction(forwarded.transaction()));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void handoff(String member, ProfileWriter profiles) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            profiles.writeTo(out);
+            Node receiver = nodes.get(member);
+            receiver.received += receiver.ownership.receive(new ByteArrayInputStream(out.toByteArray()));
+        }
+    }
+}
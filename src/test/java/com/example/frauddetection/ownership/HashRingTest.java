@@ -0,0 +1,63 @@
+package com.example.frauddetection.ownership;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashRingTest {
+    private static final int ACCOUNTS = 30_000;
+
+    @Test
+    void whenAccountsAreSpread_thenEachMemberOwnsAboutItsShare() {
+        // Arrange
+        HashRing ring = new HashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080"), 128);
+
+        // Act
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            owned.merge(ring.ownerOf("ACC" + i), 1, Integer::sum);
+        }
+
+        // Assert
+        assertEquals(3, owned.size());
+        for (int count : owned.values()) {
+            assertTrue(count > ACCOUNTS / 4 && count < ACCOUNTS * 5 / 12, "owned " + count);
+        }
+    }
+
+    @Test
+    void whenMemberIsAdded_thenOnlyAccountsTakenByItMove() {
+        // Arrange
+        HashRing before = new HashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080"), 128);
+        HashRing after = new HashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"), 128);
+
+        // Act
+        int moved = 0;
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String owner = after.ownerOf("ACC" + i);
+            if (!owner.equals(before.ownerOf("ACC" + i))) {
+                // Assert
+                assertEquals("http://d:8080", owner);
+                moved++;
+            }
+        }
+        assertTrue(moved > ACCOUNTS / 6 && moved < ACCOUNTS / 3, "moved " + moved);
+    }
+
+    @Test
+    void whenMembersAreListedInAnotherOrder_thenOwnersAgree() {
+        // Arrange
+        HashRing ring = new HashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080"), 16);
+        HashRing reordered = new HashRing(List.of("http://c:8080", "http://a:8080", "http://b:8080"), 16);
+
+        // Act & Assert
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.ownerOf("ACC" + i), reordered.ownerOf("ACC" + i));
+        }
+        assertEquals(List.of("http://a:8080", "http://b:8080", "http://c:8080"), reordered.members());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.frauddetection.replay;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.rules.HighValueRule;
+import com.example.frauddetection.rules.LocationChangeRule;
+import com.example.frauddetection.rules.RapidSuccessionRule;
+import com.example.frauddetection.rules.RepeatedSuspiciousRule;
+import com.example.frauddetection.rules.RuleThresholds;
+import com.example.frauddetection.rules.ThresholdConfig;
+import com.example.frauddetection.rules.ThresholdSettings;
+import com.example.frauddetection.rules.TransactionCodes;
+import com.example.frauddetection.rules.UnusualCurrencyRule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayEngineTest {
+
+    private final ReplayEngine engine = new ReplayEngine(
+        List.of(new HighValueRule(), new RepeatedSuspiciousRule(), new RapidSuccessionRule(),
+            new LocationChangeRule(), new UnusualCurrencyRule()),
+        new TransactionCodes(),
+        new RuleThresholds(new BigDecimal("1000"), 3, new BigDecimal("500")),
+        1024, 2);
+
+    @Test
+    void whenThresholdIsRaised_thenReplayReportsTheTransactionsNoLongerFlagged(@TempDir Path dir) throws Exception {
+        // Arrange
+        Path file = dir.resolve("transactions.csv");
+        Files.writeString(file, String.join("\n",
+            "accountId,amount,currency,timestamp,location,status",
+            "ACC1,2000,USD,2024-03-01T10:00:00Z,London,FLAGGED_SUSPICIOUS",
+            "ACC2,50,USD,2024-03-01T10:05:00Z,London,APPROVED",
+            "ACC1,20,USD,2024-03-01T11:00:00Z,London,APPROVED",
+            ",10,USD,2024-03-01T11:30:00Z,London,APPROVED",
+            "ACC2,3000,USD,1709290200000,London,APPROVED"));
+        ThresholdConfig raised = new ThresholdConfig(new ThresholdSettings(new BigDecimal("2500"), null, null), Map.of(), Map.of());
+
+        // Act
+        ReplayReport current;
+        try (TransactionSource source = new FileTransactionSource(file, new ObjectMapper())) {
+            current = engine.run(source, ThresholdConfig.EMPTY);
+        }
+        ReplayReport proposed;
+        try (TransactionSource source = new FileTransactionSource(file, new ObjectMapper())) {
+            proposed = engine.run(source, raised);
+        }
+
+        // Assert
+        assertEquals(4, current.transactions());
+        assertEquals(1, current.skipped());
+        assertEquals(1, current.outOfOrder());
+        assertEquals(2, current.flagged());
+        assertEquals(Map.of(FraudReason.HIGH_VALUE, 2L), current.flaggedByReason());
+        assertEquals(1, current.newlyFlagged());
+        assertEquals(0, current.noLongerFlagged());
+        assertEquals(1, proposed.flagged());
+        assertEquals(1, proposed.noLongerFlagged());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.service.AccountProfileStore;
+import com.example.frauddetection.service.FraudDetectionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlocklistRuleTest {
+    private static final RuleThresholds THRESHOLDS = new RuleThresholds(new BigDecimal("1000"), 3, new BigDecimal("500"));
+
+    private final TransactionCodes codes = new TransactionCodes();
+
+    @Test
+    void whenAccountOrMerchantIsListed_thenRejectOnlyThoseTransactions(@TempDir Path dir) throws Exception {
+        // Arrange
+        Path file = dir.resolve("blocklist.txt");
+        Files.writeString(file, "# kind,id\naccount,ACC666\nmerchant,MERCHANT-13\n\naccount,ACC666\n");
+        BlocklistRule rule = new BlocklistRule();
+
+        // Act
+        rule.update(Blocklist.load(file));
+
+        // Assert
+        assertEquals(2, rule.getBlocklist().size());
+        assertEquals(1.0, rule.evaluate(context("ACC666", "MERCHANT-1")));
+        assertEquals(1.0, rule.evaluate(context("ACC1", "MERCHANT-13")));
+        assertEquals(FraudRule.NOT_FIRED, rule.evaluate(context("ACC1", "MERCHANT-1")));
+        assertEquals(FraudRule.NOT_FIRED, rule.evaluate(context("MERCHANT-13", "ACC666")), "kinds do not mix");
+    }
+
+    @Test
+    void whenAccountIsListed_thenTransactionIsRejectedAndLeftOutOfItsProfile() {
+        // Arrange
+        BlocklistRule rule = new BlocklistRule();
+        rule.update(new Blocklist.Builder(1).addAccount("ACC666").build());
+        FraudDetectionService service = new FraudDetectionService(List.of(rule, new HighValueRule()), new AccountProfileStore(4096),
+            codes, THRESHOLDS, new SimpleMeterRegistry());
+        Transaction transaction = new Transaction();
+        transaction.setAccountId("ACC666");
+        transaction.setAmount(new BigDecimal("5000"));
+        transaction.setTimestamp(new Date());
+
+        // Act
+        FraudVerdict verdict = service.evaluateTransaction(transaction);
+
+        // Assert
+        assertEquals(Transaction.TransactionStatus.REJECTED, verdict.status());
+        assertTrue(verdict.isRejected());
+        assertEquals(List.of(FraudReason.BLOCKLISTED), verdict.reasons());
+        assertFalse(service.hasProfile("ACC666"));
+    }
+
+    @Test
+    void whenFileHasMoreEntriesThanTheLimit_thenItIsRejected(@TempDir Path dir) throws Exception {
+        // Arrange
+        Path file = dir.resolve("blocklist.txt");
+        Files.writeString(file, "account,ACC1\naccount,ACC2\nmerchant,MERCHANT-1\n");
+
+        // Act
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class, () -> Blocklist.load(file, 2));
+
+        // Assert
+        assertTrue(rejected.getMessage().contains("limit of 2"));
+        assertEquals(3, Blocklist.load(file, 3).size());
+    }
+
+    @Test
+    void whenManyIdsAreListed_thenEveryListedIdIsFound() {
+        // Arrange
+        Blocklist.Builder builder = new Blocklist.Builder(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            builder.addAccount("ACC" + i);
+        }
+
+        // Act
+        Blocklist blocklist = builder.build();
+
+        // Assert
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(blocklist.containsAccount("ACC" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (blocklist.containsAccount("OTHER" + i)) {
+                falsePositives++;
+            }
+        }
+        assertEquals(0, falsePositives, "the exact set confirms every Bloom filter hit");
+    }
+
+    private RuleContext context(String accountId, String merchantId) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setMerchantId(merchantId);
+        transaction.setAmount(new BigDecimal("100"));
+        return new RuleContext().reset(transaction, System.currentTimeMillis(), THRESHOLDS, codes);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.frauddetection.rules;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeTableTest {
+
+    @Test
+    void whenTableIsFull_thenNewValuesGetOverflowAndKnownValuesKeepTheirCode() {
+        // Arrange
+        CodeTable table = new CodeTable(2);
+        int usd = table.codeOf("USD");
+        table.codeOf("EUR");
+
+        // Act
+        int first = table.codeOf("XA1");
+        int second = table.codeOf("XA2");
+
+        // Assert
+        assertEquals(CodeTable.OVERFLOW, first);
+        assertEquals(CodeTable.OVERFLOW, second);
+        assertEquals(usd, table.codeOf("USD"));
+        assertEquals(2, table.size());
+        assertEquals(2, table.getOverflows());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactTransactionTest {
+
+    @Test
+    void whenAmountIsJustAboveThreshold_thenItStillExceedsItInMinorUnits() {
+        // Arrange
+        long threshold = CompactTransaction.toMinorUnits(new BigDecimal("1000"));
+
+        // Act
+        long justAbove = CompactTransaction.toMinorUnits(new BigDecimal("1000.004"));
+        long exact = CompactTransaction.toMinorUnits(new BigDecimal("1000.00"));
+
+        // Assert
+        assertEquals(100_000, threshold);
+        assertTrue(justAbove > threshold);
+        assertEquals(threshold, exact);
+    }
+
+    @Test
+    void whenAmountDoesNotFitALong_thenItSaturatesInsteadOfWrapping() {
+        // Act
+        long huge = CompactTransaction.toMinorUnits(new BigDecimal("92233720368547758.08"));
+        long hugeExponent = CompactTransaction.toMinorUnits(new BigDecimal("1E+1000000"));
+        long hugeNegative = CompactTransaction.toMinorUnits(new BigDecimal("-1E+40"));
+        long tiny = CompactTransaction.toMinorUnits(new BigDecimal("1E-1000000"));
+
+        // Assert
+        assertEquals(Long.MAX_VALUE, huge);
+        assertEquals(Long.MAX_VALUE, hugeExponent);
+        assertEquals(CompactTransaction.NO_AMOUNT + 1, hugeNegative);
+        assertEquals(1, tiny);
+    }
+
+    @Test
+    void whenMerchantHasNoOverride_thenItIsNotInterned() {
+        // Arrange
+        TransactionCodes codes = new TransactionCodes();
+        RuleThresholds base = new RuleThresholds(new BigDecimal("1000"), 3, new BigDecimal("500"));
+        ThresholdTable table = ThresholdTable.build(base, new ThresholdConfig(null, null,
+            Map.of("MERCHANT-42", new ThresholdSettings(new BigDecimal("50"), null, null))), codes);
+
+        // Act
+        CompactTransaction configured = new CompactTransaction().load(transaction("MERCHANT-42"), 0, codes);
+        CompactTransaction other = new CompactTransaction().load(transaction("MERCHANT-7"), 0, codes);
+
+        // Assert
+        assertEquals(new BigDecimal("50"), table.resolve(configured.getMerchant(), configured.getCurrency()).getAmountThreshold());
+        assertEquals(CodeTable.NONE, other.getMerchant());
+        assertEquals(1, codes.merchants().size());
+    }
+
+    private static Transaction transaction(String merchantId) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId("ACC1");
+        transaction.setAmount(new BigDecimal("100"));
+        transaction.setTimestamp(new Date(0));
+        transaction.setCurrency("USD");
+        transaction.setMerchantId(merchantId);
+        return transaction;
+    }
+}
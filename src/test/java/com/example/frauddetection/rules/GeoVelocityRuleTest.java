@@ -0,0 +1,65 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.service.AccountProfileStore;
+import com.example.frauddetection.service.AccountWindow;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoVelocityRuleTest {
+    private static final long START = 1_700_000_000_000L;
+    private static final RuleThresholds THRESHOLDS = new RuleThresholds(new BigDecimal("1000"), 3, new BigDecimal("500"));
+
+    private final TransactionCodes codes = new TransactionCodes();
+    private final AccountProfileStore store = new AccountProfileStore(4096);
+    private final AccountWindow window = new AccountWindow();
+
+    @Test
+    void whenTripIsTooFastForTheDistance_thenFlagOnlyImpossibleTravel() throws Exception {
+        // Arrange
+        LocationIndex index = LocationIndex.load(new BufferedReader(new StringReader(
+            "# name,latitude,longitude\nLondon,51.5074,-0.1278\nParis,48.8566,2.3522\nNew York,40.7128,-74.0060\n")),
+            codes.locations());
+        GeoVelocityRule rule = new GeoVelocityRule(index, 900, 100);
+        LocationChangeRule locationChangeRule = new LocationChangeRule(index);
+
+        // Act: London to Paris (about 340 km) in 10 minutes, London to New York (about 5570 km) in 8 hours
+        RuleContext parisSoon = afterLondon("ACC1", "Paris", TimeUnit.MINUTES.toMillis(10));
+        double parisSoonScore = rule.evaluate(parisSoon);
+        double locationChangeScore = locationChangeRule.evaluate(parisSoon);
+        double newYorkLater = rule.evaluate(afterLondon("ACC2", "New York", TimeUnit.HOURS.toMillis(8)));
+        double unknownLocation = rule.evaluate(afterLondon("ACC3", "Atlantis", TimeUnit.MINUTES.toMillis(1)));
+
+        // Assert
+        assertTrue(parisSoonScore > 2.0, "about 2000 km/h against a 900 km/h limit");
+        assertEquals(FraudRule.NOT_FIRED, locationChangeScore, "indexed pairs are left to the geo-velocity rule");
+        assertEquals(FraudRule.NOT_FIRED, newYorkLater);
+        assertEquals(FraudRule.NOT_FIRED, unknownLocation);
+        assertEquals(3, index.size());
+    }
+
+    private RuleContext afterLondon(String accountId, String location, long elapsedMillis) {
+        store.attachOrCreate(accountId, window);
+        window.append(new CompactTransaction().load(transaction(accountId, "London"), START, codes),
+            Transaction.TransactionStatus.APPROVED);
+        RuleContext context = new RuleContext().reset(transaction(accountId, location), START + elapsedMillis, THRESHOLDS, codes);
+        context.setWindow(window);
+        return context;
+    }
+
+    private static Transaction transaction(String accountId, String location) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(new BigDecimal("600"));
+        transaction.setLocation(location);
+        transaction.setTimestamp(new Date(START));
+        return transaction;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.frauddetection.rules;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RulePipelineTest {
+
+    @Test
+    void whenCheapRuleFires_thenExpensiveRulesAreNotEvaluated() {
+        // Arrange
+        List<FraudReason> evaluated = new ArrayList<>();
+        FraudRule expensive = new StubRule(FraudReason.UNUSUAL_CURRENCY, 10, 1.0, evaluated);
+        FraudRule cheap = new StubRule(FraudReason.HIGH_VALUE, 1, 2.5, evaluated);
+        RulePipeline pipeline = new RulePipeline(List.of(expensive, cheap), new SimpleMeterRegistry());
+
+        // Act
+        FraudVerdict verdict = pipeline.evaluateTransactionRules(context());
+
+        // Assert
+        assertEquals(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS, verdict.status());
+        assertEquals(List.of(FraudReason.HIGH_VALUE), verdict.reasons());
+        assertEquals(2.5, verdict.scores().get(FraudReason.HIGH_VALUE));
+        assertEquals(List.of(FraudReason.HIGH_VALUE), evaluated);
+    }
+
+    @Test
+    void whenNoRuleFires_thenWindowStageApproves() {
+        // Arrange
+        List<FraudReason> evaluated = new ArrayList<>();
+        RulePipeline pipeline = new RulePipeline(List.of(
+            new StubRule(FraudReason.HIGH_VALUE, 1, FraudRule.NOT_FIRED, evaluated)), new SimpleMeterRegistry());
+
+        // Act
+        FraudVerdict transactionVerdict = pipeline.evaluateTransactionRules(context());
+        FraudVerdict windowVerdict = pipeline.evaluateWindowRules(context());
+
+        // Assert
+        assertNull(transactionVerdict);
+        assertEquals(Transaction.TransactionStatus.APPROVED, windowVerdict.status());
+        assertTrue(windowVerdict.reasons().isEmpty());
+    }
+
+    private RuleContext context() {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId("ACC123");
+        transaction.setAmount(new BigDecimal("100"));
+        return new RuleContext().reset(transaction, System.currentTimeMillis(),
+            new RuleThresholds(new BigDecimal("1000"), 3, new BigDecimal("500")), new TransactionCodes());
+    }
+
+    private record StubRule(FraudReason reason, int cost, double score, List<FraudReason> evaluated) implements FraudRule {
+        @Override
+        public RuleInput input() {
+            return RuleInput.TRANSACTION;
+        }
+
+        @Override
+        public double evaluate(RuleContext context) {
+            evaluated.add(reason);
+            return score;
+        }
+    }
+}
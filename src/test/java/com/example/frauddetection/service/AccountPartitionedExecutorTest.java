@@ -0,0 +1,79 @@
+package com.example.frauddetection.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountPartitionedExecutorTest {
+
+    @Test
+    void whenSameAccountSubmittedConcurrently_thenTasksRunInSubmissionOrder() {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            // Arrange
+            AccountPartitionedExecutor executor = new AccountPartitionedExecutor(pool, 16);
+            List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+            // Act
+            for (int i = 0; i < 1000; i++) {
+                int sequence = i;
+                futures.add(executor.submit("ACC123", () -> {
+                    processed.add(sequence);
+                    return null;
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            // Assert
+            assertEquals(1000, processed.size());
+            for (int i = 0; i < processed.size(); i++) {
+                assertEquals(i, processed.get(i));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void whenAccountsMapToDifferentLanes_thenTheyRunInParallel() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // Arrange
+            AccountPartitionedExecutor executor = new AccountPartitionedExecutor(pool, 64);
+            String first = "ACC1";
+            String second = "ACC2";
+            for (int i = 3; executor.laneOf(first) == executor.laneOf(second); i++) {
+                second = "ACC" + i;
+            }
+            CountDownLatch bothRunning = new CountDownLatch(2);
+
+            // Act
+            executor.execute(first, () -> awaitBoth(bothRunning));
+            executor.execute(second, () -> awaitBoth(bothRunning));
+
+            // Assert
+            assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void awaitBoth(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
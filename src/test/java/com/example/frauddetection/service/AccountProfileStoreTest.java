@@ -0,0 +1,201 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.rules.CompactTransaction;
+import com.example.frauddetection.rules.TransactionCodes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountProfileStoreTest {
+    private static final long START = 1_700_000_000_000L;
+
+    private final TransactionCodes codes = new TransactionCodes();
+    private final AccountWindow window = new AccountWindow();
+
+    @Test
+    void whenAccountIsRecorded_thenStateIsFoundAgain() {
+        // Arrange
+        AccountProfileStore store = new AccountProfileStore(4096);
+        assertTrue(store.attachOrCreate("ACC1", window));
+        window.append(compact("ACC1", START, "London", "USD"), Transaction.TransactionStatus.FLAGGED_SUSPICIOUS);
+
+        // Act
+        boolean found = store.attach("ACC1", window);
+
+        // Assert
+        assertTrue(found);
+        assertEquals(codes.locations().codeOf("London"), window.lastLocation());
+        assertEquals(1, window.suspiciousCount());
+        assertFalse(store.attach("ACC2", window));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void whenProbeRangeIsFull_thenLeastRecentlySeenAccountIsReplaced() {
+        // Arrange: the smallest store has one probe range per segment, fill one segment past it
+        AccountProfileStore store = new AccountProfileStore(1);
+        List<String> accounts = accountsInSegmentZero(17);
+        for (int i = 0; i < 16; i++) {
+            store.attachOrCreate(accounts.get(i), window);
+            window.append(compact(accounts.get(i), START + i, "London", "USD"), Transaction.TransactionStatus.APPROVED);
+        }
+
+        // Act
+        store.attachOrCreate(accounts.get(16), window);
+
+        // Assert
+        assertEquals(1, store.getEvictions());
+        assertFalse(store.attach(accounts.get(0), window));
+        for (int i = 1; i < 17; i++) {
+            assertTrue(store.attach(accounts.get(i), window));
+        }
+    }
+
+    @Test
+    void whenRecentTransactionsAge_thenRecentCountDropsThem() {
+        // Arrange
+        AccountProfileStore store = new AccountProfileStore(4096);
+        store.attachOrCreate("ACC1", window);
+        window.append(compact("ACC1", START, "London", "USD"), Transaction.TransactionStatus.APPROVED);
+        window.append(compact("ACC1", START + TimeUnit.MINUTES.toMillis(2), "London", "USD"), Transaction.TransactionStatus.APPROVED);
+        window.append(compact("ACC1", START + TimeUnit.MINUTES.toMillis(4), "London", "USD"), Transaction.TransactionStatus.APPROVED);
+
+        // Act
+        window.evictExpired(START + TimeUnit.MINUTES.toMillis(6));
+
+        // Assert
+        assertEquals(2, window.recentCount());
+        assertEquals(1, window.distinctCurrencies());
+    }
+
+    @Test
+    void whenTransactionsArriveLate_thenRecentCountCountsThemInTheirOwnBucket() {
+        // Arrange
+        AccountProfileStore store = new AccountProfileStore(4096);
+        store.attachOrCreate("ACC1", window);
+        window.append(compact("ACC1", START + TimeUnit.MINUTES.toMillis(4), "London", "USD"), Transaction.TransactionStatus.APPROVED);
+
+        // Act
+        window.append(compact("ACC1", START, "London", "USD"), Transaction.TransactionStatus.APPROVED);
+        window.append(compact("ACC1", START + TimeUnit.MINUTES.toMillis(2), "London", "USD"), Transaction.TransactionStatus.APPROVED);
+        window.evictExpired(START + TimeUnit.MINUTES.toMillis(6));
+
+        // Assert
+        assertEquals(2, window.recentCount());
+    }
+
+    @Test
+    void whenSnapshotIsLoadedByAnotherProcess_thenProfilesAreRestoredWithItsCodes(@TempDir Path dir) throws Exception {
+        // Arrange
+        Path snapshot = dir.resolve("profiles.snapshot");
+        AccountProfileStore store = new AccountProfileStore(4096);
+        store.attachOrCreate("ACC1", window);
+        window.append(compact("ACC1", START, "London", "USD"), Transaction.TransactionStatus.FLAGGED_SUSPICIOUS);
+        store.attachOrCreate("ACC2", window);
+        window.append(compact("ACC2", START - AccountWindow.WINDOW_MILLIS - 1, "Paris", "EUR"), Transaction.TransactionStatus.APPROVED);
+        AccountProfileSnapshot.write(store, codes, snapshot);
+
+        // The new process has interned other values first, so its codes differ
+        TransactionCodes restartedCodes = new TransactionCodes();
+        restartedCodes.locations().codeOf("Tokyo");
+        restartedCodes.currencies().codeOf("JPY");
+        AccountProfileStore restarted = new AccountProfileStore(1 << 16);
+
+        // Act
+        long restored = AccountProfileSnapshot.read(restarted, restartedCodes, snapshot, START + 1000);
+
+        // Assert
+        assertEquals(1, restored);
+        assertTrue(restarted.attach("ACC1", window));
+        assertEquals(restartedCodes.locations().codeOf("London"), window.lastLocation());
+        assertTrue(window.hasCurrency(restartedCodes.currencies().codeOf("USD")));
+        assertEquals(1, window.suspiciousCount());
+        assertFalse(restarted.attach("ACC2", window), "accounts idle for a whole window are not restored");
+    }
+
+    @Test
+    void whenProfilesAreHandedOff_thenOnlyStaleProfilesAreReplaced() throws Exception {
+        // Arrange: the receiver saw ACC1 before the sender did, and ACC2 after
+        AccountProfileStore sender = new AccountProfileStore(4096);
+        sender.attachOrCreate("ACC1", window);
+        window.append(compact("ACC1", START + 2000, "Paris", "USD"), Transaction.TransactionStatus.APPROVED);
+        sender.attachOrCreate("ACC2", window);
+        window.append(compact("ACC2", START, "Paris", "USD"), Transaction.TransactionStatus.APPROVED);
+        ByteArrayOutputStream handoff = new ByteArrayOutputStream();
+        AccountProfileSnapshot.write(sender, codes, handoff, key -> true);
+        AccountProfileStore receiver = new AccountProfileStore(4096);
+        receiver.attachOrCreate("ACC1", window);
+        window.append(compact("ACC1", START, "London", "USD"), Transaction.TransactionStatus.APPROVED);
+        receiver.attachOrCreate("ACC2", window);
+        window.append(compact("ACC2", START + 2000, "London", "USD"), Transaction.TransactionStatus.APPROVED);
+
+        // Act
+        long imported = AccountProfileSnapshot.read(receiver, codes, new ByteArrayInputStream(handoff.toByteArray()), "handoff", START + 3000);
+
+        // Assert
+        assertEquals(1, imported);
+        assertTrue(receiver.attach("ACC1", window));
+        assertEquals(codes.locations().codeOf("Paris"), window.lastLocation());
+        assertTrue(receiver.attach("ACC2", window));
+        assertEquals(codes.locations().codeOf("London"), window.lastLocation());
+    }
+
+    @Test
+    void whenRecordsAreRemoved_thenRecordsProbedPastThemAreStillFound() {
+        // Arrange: a full segment, so most records sit past their start slot
+        AccountProfileStore store = new AccountProfileStore(1);
+        List<String> accounts = accountsInSegmentZero(16);
+        for (String account : accounts) {
+            store.attachOrCreate(account, window);
+        }
+        Set<Long> removedKeys = new HashSet<>();
+        for (int i = 0; i < accounts.size(); i += 2) {
+            removedKeys.add(AccountProfileStore.keyOf(accounts.get(i)));
+        }
+
+        // Act
+        long removed = store.removeIf(removedKeys::contains);
+
+        // Assert
+        assertEquals(8, removed);
+        assertEquals(8, store.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            assertEquals(i % 2 == 1, store.attach(accounts.get(i), window), accounts.get(i));
+        }
+        assertTrue(store.attachOrCreate(accounts.get(0), window));
+        assertEquals(0, store.getEvictions());
+    }
+
+    private CompactTransaction compact(String accountId, long timestampMillis, String location, String currency) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(new BigDecimal("100"));
+        transaction.setTimestamp(new Date(timestampMillis));
+        transaction.setLocation(location);
+        transaction.setCurrency(currency);
+        return new CompactTransaction().load(transaction, timestampMillis, codes);
+    }
+
+    private static List<String> accountsInSegmentZero(int count) {
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; accounts.size() < count; i++) {
+            if ((AccountProfileStore.keyOf("ACC" + i) & 0xFF) == 0) {
+                accounts.add("ACC" + i);
+            }
+        }
+        return accounts;
+    }
+}
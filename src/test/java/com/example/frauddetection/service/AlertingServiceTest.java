@@ -0,0 +1,128 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.alerting.Alert;
+import com.example.frauddetection.alerting.AlertSink;
+import com.example.frauddetection.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertingServiceTest {
+
+    @Test
+    void whenSameAccountAlertsRepeatedly_thenDeliverOnce() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        List<Alert> delivered = new CopyOnWriteArrayList<>();
+        AlertingService alertingService = new AlertingService(registry, List.of(delivered::addAll), 16, 10, 5, 300);
+
+        // Act
+        alertingService.sendAlert(transaction("ACC1"), "HIGH_VALUE");
+        alertingService.sendAlert(transaction("ACC1"), "HIGH_VALUE");
+        alertingService.sendAlert(transaction("ACC2"), "HIGH_VALUE");
+        alertingService.close();
+
+        // Assert
+        assertEquals(2, delivered.size());
+        assertEquals(3.0, registry.counter("fraud.transactions.total").count());
+        assertEquals(1.0, registry.counter("fraud.alerts.deduplicated").count());
+        assertEquals(2.0, registry.counter("fraud.alerts.dispatched").count());
+    }
+
+    @Test
+    void whenSinkIsSlowAndBufferFull_thenDropInsteadOfBlocking() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch sinkEntered = new CountDownLatch(1);
+        CountDownLatch releaseSink = new CountDownLatch(1);
+        AlertSink slowSink = alerts -> {
+            sinkEntered.countDown();
+            releaseSink.await();
+        };
+        AlertingService alertingService = new AlertingService(registry, List.of(slowSink), 4, 1, 1, 0);
+        alertingService.sendAlert(transaction("ACC0"), "HIGH_VALUE");
+        assertTrue(sinkEntered.await(5, TimeUnit.SECONDS));
+
+        // Act
+        long start = System.nanoTime();
+        for (int i = 1; i <= 10; i++) {
+            alertingService.sendAlert(transaction("ACC" + i), "HIGH_VALUE");
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Assert
+        assertTrue(elapsedMillis < 1000, "sendAlert must not wait for the sink");
+        assertEquals(6.0, registry.counter("fraud.alerts.dropped").count());
+        releaseSink.countDown();
+        alertingService.close();
+    }
+
+    @Test
+    void whenAlertIsDroppedFromFullBuffer_thenItsNextAlertIsNotDeduplicated() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        List<Alert> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch sinkEntered = new CountDownLatch(1);
+        CountDownLatch releaseSink = new CountDownLatch(1);
+        AlertSink slowSink = alerts -> {
+            sinkEntered.countDown();
+            releaseSink.await();
+            delivered.addAll(alerts);
+        };
+        AlertingService alertingService = new AlertingService(registry, List.of(slowSink), 4, 1, 1, 300);
+        alertingService.sendAlert(transaction("ACC0"), "HIGH_VALUE");
+        assertTrue(sinkEntered.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 4; i++) {
+            alertingService.sendAlert(transaction("ACC" + i), "HIGH_VALUE");
+        }
+        alertingService.sendAlert(transaction("ACC5"), "HIGH_VALUE");
+        releaseSink.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (alertingService.getPendingAlerts() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // Act
+        alertingService.sendAlert(transaction("ACC5"), "HIGH_VALUE");
+        alertingService.close();
+
+        // Assert
+        assertEquals(1.0, registry.counter("fraud.alerts.dropped").count());
+        assertEquals(0.0, registry.counter("fraud.alerts.deduplicated").count());
+        assertEquals(6, delivered.size());
+        assertEquals("ACC5", delivered.get(5).accountId());
+    }
+
+    @Test
+    void whenAlertsAreSent_thenCountUnderReasonTag() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AlertingService alertingService = new AlertingService(registry, List.of(alerts -> { }), 16, 10, 5, 0);
+
+        // Act
+        alertingService.sendAlert(transaction("ACC1"), "RAPID_SUCCESSION");
+        alertingService.sendAlert(transaction("ACC2"), "RAPID_SUCCESSION");
+        alertingService.sendAlert(transaction("ACC3"), "SOMETHING_NEW");
+        alertingService.close();
+
+        // Assert
+        assertEquals(2.0, registry.get("fraud.transactions.flagged").tag("reason", "RAPID_SUCCESSION").counter().count());
+        assertEquals(1.0, registry.get("fraud.transactions.flagged").tag("reason", "UNKNOWN").counter().count());
+        assertEquals(0.0, registry.get("fraud.transactions.flagged").tag("reason", "HIGH_VALUE").counter().count());
+    }
+
+    private Transaction transaction(String accountId) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(new BigDecimal("2000"));
+        transaction.setLocation("London");
+        return transaction;
+    }
+}
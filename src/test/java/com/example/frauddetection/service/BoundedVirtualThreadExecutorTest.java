@@ -0,0 +1,47 @@
+package com.example.frauddetection.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedVirtualThreadExecutorTest {
+
+    @Test
+    void whenCapIsReached_thenSubmitterBlocksUntilASlotFrees() throws Exception {
+        try (BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("test-", 2)) {
+            // Arrange
+            CountDownLatch release = new CountDownLatch(1);
+            executor.execute(() -> await(release));
+            executor.execute(() -> await(release));
+            assertEquals(2, executor.getInFlight());
+
+            // Act
+            AtomicBoolean thirdSubmitted = new AtomicBoolean();
+            CountDownLatch thirdRan = new CountDownLatch(1);
+            Thread submitter = Thread.ofPlatform().start(() -> {
+                executor.execute(thirdRan::countDown);
+                thirdSubmitted.set(true);
+            });
+
+            // Assert
+            submitter.join(200);
+            assertFalse(thirdSubmitted.get(), "submission should wait for a free slot instead of being rejected");
+            release.countDown();
+            assertTrue(thirdRan.await(5, TimeUnit.SECONDS));
+            submitter.join(5000);
+            assertTrue(thirdSubmitted.get());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.frauddetection.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong nanoClock = new AtomicLong();
+    private final List<CircuitBreaker.State> transitions = new ArrayList<>();
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new CircuitBreaker(3, 1_000, nanoClock::get, transitions::add);
+    }
+
+    @Test
+    void whenFailuresReachThreshold_thenOpenAndRejectUntilOpenPeriodEnds() {
+        // Arrange
+        fail(2);
+        circuitBreaker.onSuccess(circuitBreaker.tryAcquire());
+
+        // Act
+        fail(3);
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.Permit.REJECTED, circuitBreaker.tryAcquire());
+        nanoClock.set(999_000_000L);
+        assertEquals(CircuitBreaker.Permit.REJECTED, circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void whenHalfOpen_thenAdmitOneProbeAndCloseOnSuccess() {
+        // Arrange
+        fail(3);
+        nanoClock.set(1_000_000_000L);
+
+        // Act
+        CircuitBreaker.Permit probe = circuitBreaker.tryAcquire();
+        CircuitBreaker.Permit second = circuitBreaker.tryAcquire();
+        circuitBreaker.onSuccess(probe);
+
+        // Assert
+        assertEquals(CircuitBreaker.Permit.PROBE, probe);
+        assertEquals(CircuitBreaker.Permit.REJECTED, second);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(List.of(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED), transitions);
+    }
+
+    @Test
+    void whenProbeFails_thenReopen() {
+        // Arrange
+        fail(3);
+        nanoClock.set(1_000_000_000L);
+
+        // Act
+        circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(CircuitBreaker.Permit.REJECTED, circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void whenCallAdmittedBeforeOpeningSucceedsLate_thenStayOpen() {
+        // Arrange
+        CircuitBreaker.Permit late = circuitBreaker.tryAcquire();
+        fail(3);
+
+        // Act
+        circuitBreaker.onSuccess(late);
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            circuitBreaker.onFailure(circuitBreaker.tryAcquire());
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package com.example.frauddetection.service;
 
+import com.example.frauddetection.model.AccountWindowEntry;
+import com.example.frauddetection.model.FraudVerdict;
 import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.model.TransactionWindowEntry;
 import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.rules.RepeatedSuspiciousRule;
+import com.example.frauddetection.rules.ThresholdConfig;
+import com.example.frauddetection.rules.ThresholdSettings;
+import com.example.frauddetection.rules.TransactionCodes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,14 +17,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Calendar;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -89,8 +103,8 @@ class FraudDetectionServiceTest {
         Transaction transaction3 = new Transaction();
         transaction3.setTimestamp(now.getTime());
 
-        when(transactionRepository.findRecentTransactionsByAccount(eq("ACC123"), any()))
-            .thenReturn(Arrays.asList(transaction1, transaction2, transaction3));
+        when(transactionRepository.findRecentWindowEntriesByAccount(eq("ACC123"), any()))
+            .thenReturn(entries(transaction1, transaction2, transaction3));
 
         // Act
         Transaction.TransactionStatus status = fraudDetectionService.analyzeTransaction(currentTransaction);
@@ -114,8 +128,8 @@ class FraudDetectionServiceTest {
         previousTransaction.setLocation("Paris");
         previousTransaction.setTimestamp(now.getTime());
 
-        when(transactionRepository.findRecentTransactionsByAccount(eq("ACC123"), any()))
-            .thenReturn(Collections.singletonList(previousTransaction));
+        when(transactionRepository.findRecentWindowEntriesByAccount(eq("ACC123"), any()))
+            .thenReturn(entries(previousTransaction));
 
         // Act
         Transaction.TransactionStatus status = fraudDetectionService.analyzeTransaction(currentTransaction);
@@ -146,8 +160,8 @@ class FraudDetectionServiceTest {
         transaction2.setTimestamp(now.getTime());
         transaction2.setLocation("London");
 
-        when(transactionRepository.findRecentTransactionsByAccount(eq("ACC123"), any()))
-            .thenReturn(Arrays.asList(transaction1, transaction2));
+        when(transactionRepository.findRecentWindowEntriesByAccount(eq("ACC123"), any()))
+            .thenReturn(entries(transaction1, transaction2));
 
         // Act
         Transaction.TransactionStatus status = fraudDetectionService.analyzeTransaction(currentTransaction);
@@ -165,7 +179,7 @@ class FraudDetectionServiceTest {
         transaction.setLocation("London");
         transaction.setCurrency("USD");
 
-        when(transactionRepository.findRecentTransactionsByAccount(eq("ACC123"), any()))
+        when(transactionRepository.findRecentWindowEntriesByAccount(eq("ACC123"), any()))
             .thenReturn(Collections.emptyList());
 
         // Act
@@ -174,4 +188,138 @@ class FraudDetectionServiceTest {
         // Assert
         assertEquals(Transaction.TransactionStatus.APPROVED, status);
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenBurstIsAnalyzed_thenWindowSeesItWithoutReloading() {
+        // Arrange
+        Calendar now = Calendar.getInstance();
+        now.add(Calendar.MINUTE, -3);
+
+        when(transactionRepository.findRecentWindowEntriesByAccount(eq("ACC123"), any()))
+            .thenReturn(Collections.emptyList());
+
+        // Act
+        Transaction.TransactionStatus status = null;
+        for (int i = 0; i < 4; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAccountId("ACC123");
+            transaction.setAmount(new BigDecimal("100"));
+            transaction.setLocation("London");
+            transaction.setCurrency("USD");
+            transaction.setTimestamp(now.getTime());
+            status = fraudDetectionService.analyzeTransaction(transaction);
+            now.add(Calendar.MINUTE, 1);
+        }
+
+        // Assert
+        assertEquals(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS, status);
+        verify(transactionRepository, times(1)).findRecentWindowEntriesByAccount(eq("ACC123"), any());
+    }
+
+    @Test
+    void whenAccountsArePreloadedTogether_thenOneQuerySeedsThemAll() {
+        // Arrange
+        Date recently = new Date(System.currentTimeMillis() - 60_000);
+        List<AccountWindowEntry> history = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            history.add(new AccountWindowEntry("ACC1", recently, "London", "USD", new BigDecimal("100"),
+                Transaction.TransactionStatus.FLAGGED_SUSPICIOUS));
+        }
+        when(transactionRepository.findRecentWindowEntriesByAccounts(any(), any())).thenReturn(history);
+
+        Transaction transaction = new Transaction();
+        transaction.setAccountId("ACC1");
+        transaction.setAmount(new BigDecimal("100"));
+
+        // Act
+        int created = fraudDetectionService.preloadAll(List.of("ACC1", "ACC2", "ACC1"));
+        Transaction.TransactionStatus status = fraudDetectionService.analyzeTransaction(transaction);
+
+        // Assert
+        assertEquals(2, created);
+        assertEquals(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS, status);
+        verify(transactionRepository, times(1)).findRecentWindowEntriesByAccounts(any(), any());
+        verify(transactionRepository, never()).findRecentWindowEntriesByAccount(any(), any());
+    }
+
+    @Test
+    void whenWarmingUpWhileCircuitIsOpen_thenAccountsAreStillSeeded() {
+        // Arrange
+        RepositoryGuard guard = new RepositoryGuard(new CircuitBreaker(1, 60_000, state -> { }), 4, 1_000);
+        FraudDetectionService service = new FraudDetectionService(transactionRepository, List.of(new RepeatedSuspiciousRule()),
+            new AccountProfileStore(4096), new TransactionCodes(), guard, new SimpleMeterRegistry());
+        guard.submit(() -> {
+            throw new IllegalStateException("database down");
+        }).exceptionally(e -> null).join();
+        Date recently = new Date(System.currentTimeMillis() - 60_000);
+        when(transactionRepository.findRecentWindowEntriesByAccountsForWarmUp(any(), any())).thenReturn(List.of(
+            new AccountWindowEntry("ACC1", recently, "London", "USD", new BigDecimal("100"), Transaction.TransactionStatus.APPROVED)));
+
+        // Act
+        int created = service.warmUp(List.of("ACC1"));
+
+        // Assert
+        assertEquals(1, created);
+        assertTrue(service.hasProfile("ACC1"));
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState());
+        verify(transactionRepository, never()).findRecentWindowEntriesByAccounts(any(), any());
+        guard.close();
+    }
+
+    @Test
+    void whenCurrencyHasThresholdOverride_thenOnlyThatCurrencyUsesIt() {
+        // Arrange
+        fraudDetectionService.updateThresholds(new ThresholdConfig(null,
+            Map.of("JPY", new ThresholdSettings(new BigDecimal("150000"), null, null)), null));
+
+        Transaction yen = new Transaction();
+        yen.setAccountId("ACC1");
+        yen.setAmount(new BigDecimal("2000"));
+        yen.setCurrency("JPY");
+        Transaction dollars = new Transaction();
+        dollars.setAccountId("ACC2");
+        dollars.setAmount(new BigDecimal("2000"));
+        dollars.setCurrency("USD");
+
+        // Act
+        Transaction.TransactionStatus yenStatus = fraudDetectionService.analyzeTransaction(yen);
+        Transaction.TransactionStatus dollarStatus = fraudDetectionService.analyzeTransaction(dollars);
+
+        // Assert
+        assertEquals(Transaction.TransactionStatus.APPROVED, yenStatus);
+        assertEquals(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS, dollarStatus);
+    }
+
+    @Test
+    void whenHistoryLoadMissesDeadline_thenDecidePartiallyFromTransactionRules() {
+        // Arrange
+        ReflectionTestUtils.setField(fraudDetectionService, "deadlineMillis", 20L);
+        when(transactionRepository.findRecentWindowEntriesByAccount(eq("ACC123"), any())).thenAnswer(invocation -> {
+            Thread.sleep(500);
+            return List.of();
+        });
+        Transaction small = new Transaction();
+        small.setAccountId("ACC123");
+        small.setAmount(new BigDecimal("100"));
+        Transaction large = new Transaction();
+        large.setAccountId("ACC123");
+        large.setAmount(new BigDecimal("2000"));
+
+        // Act
+        long startMillis = System.currentTimeMillis();
+        FraudVerdict smallVerdict = fraudDetectionService.evaluateTransaction(small);
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+        FraudVerdict largeVerdict = fraudDetectionService.evaluateTransaction(large);
+
+        // Assert
+        assertTrue(elapsedMillis < 400, "waited " + elapsedMillis + " ms for the repository");
+        assertEquals(Transaction.TransactionStatus.APPROVED, smallVerdict.status());
+        assertTrue(smallVerdict.partial());
+        assertEquals(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS, largeVerdict.status());
+        assertFalse(largeVerdict.partial());
+    }
+
+    private static List<TransactionWindowEntry> entries(Transaction... history) {
+        return Arrays.stream(history).map(TransactionWindowEntry::of).toList();
+    }
+}
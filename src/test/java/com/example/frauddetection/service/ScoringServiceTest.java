@@ -0,0 +1,122 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.ownership.AccountOwnership;
+import com.example.frauddetection.ownership.StaticMembership;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScoringServiceTest {
+
+    @Mock
+    private FraudDetectionService fraudDetectionService;
+
+    @Mock
+    private TransactionWriter transactionWriter;
+
+    @Mock
+    private AlertingService alertingService;
+
+    @Test
+    void whenScoring_thenReturnVerdictAndPersistBeforeAlerting() {
+        // Arrange
+        ScoringService scoringService = scoringService(Runnable::run);
+        Transaction transaction = transaction("ACC1", "2000");
+        when(fraudDetectionService.evaluateTransaction(eq(transaction), anyLong())).thenReturn(FraudVerdict.flagged(FraudReason.HIGH_VALUE, 2.0));
+
+        // Act
+        FraudVerdict verdict = scoringService.score(transaction);
+
+        // Assert
+        assertTrue(verdict.isFlagged());
+        assertNotNull(transaction.getTimestamp());
+        assertEquals(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS, transaction.getStatus());
+        InOrder order = inOrder(transactionWriter, alertingService);
+        order.verify(transactionWriter).writeAll(List.of(transaction));
+        order.verify(alertingService).sendAlert(transaction, "HIGH_VALUE");
+    }
+
+    @Test
+    void whenDecisionMissesBudget_thenTimeOutAndDropTransaction() {
+        // Arrange
+        List<Runnable> queued = new ArrayList<>();
+        ScoringService scoringService = scoringService(queued::add);
+        Transaction transaction = transaction("ACC1", "100");
+
+        // Act
+        assertThrows(ScoringTimeoutException.class, () -> scoringService.score(transaction));
+        queued.forEach(Runnable::run);
+
+        // Assert
+        verify(fraudDetectionService, never()).evaluateTransaction(any(Transaction.class), anyLong());
+        verify(transactionWriter, never()).writeAll(anyList());
+    }
+
+    @Test
+    void whenScoringBatch_thenReturnVerdictsInRequestOrder() {
+        // Arrange
+        ScoringService scoringService = scoringService(Runnable::run);
+        Transaction first = transaction("ACC1", "100");
+        Transaction second = transaction("ACC2", "2000");
+        Transaction third = transaction("ACC1", "200");
+        when(fraudDetectionService.evaluateTransaction(eq(first), anyLong())).thenReturn(FraudVerdict.approved());
+        when(fraudDetectionService.evaluateTransaction(eq(second), anyLong())).thenReturn(FraudVerdict.flagged(FraudReason.HIGH_VALUE, 2.0));
+        when(fraudDetectionService.evaluateTransaction(eq(third), anyLong())).thenReturn(FraudVerdict.approved());
+
+        // Act
+        List<FraudVerdict> verdicts = scoringService.scoreAll(List.of(first, second, third));
+
+        // Assert
+        assertEquals(List.of(false, true, false), verdicts.stream().map(FraudVerdict::isFlagged).toList());
+        verify(fraudDetectionService).preloadAll(any(), anyLong());
+        verify(transactionWriter).writeAll(List.of(first, third));
+        verify(transactionWriter).writeAll(List.of(second));
+    }
+
+    @Test
+    void whenTransactionHasNoAccount_thenReject() {
+        // Arrange
+        ScoringService scoringService = scoringService(Runnable::run);
+        Transaction transaction = transaction(null, "100");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> scoringService.score(transaction));
+    }
+
+    private ScoringService scoringService(Executor executor) {
+        return new ScoringService(fraudDetectionService, transactionWriter, alertingService, executor,
+            new AccountOwnership("local", new StaticMembership(List.of()), null, fraudDetectionService, new SimpleMeterRegistry(), 1, 0),
+            new SimpleMeterRegistry(), 5, 50);
+    }
+
+    private Transaction transaction(String accountId, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setLocation("TestLocation");
+        transaction.setCurrency("USD");
+        return transaction;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.rules.ThresholdConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ThresholdReloaderTest {
+
+    @Mock
+    private FraudDetectionService fraudDetectionService;
+
+    @Test
+    void whenFileChanges_thenApplyValidThresholdsAndRejectInvalidOnesOnce(@TempDir Path dir) throws Exception {
+        // Arrange
+        Path file = dir.resolve("thresholds.json");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ThresholdReloader reloader = new ThresholdReloader(fraudDetectionService, new ObjectMapper(), registry, file.toString(), 0);
+        Files.writeString(file, "{\"defaults\": {\"amountThreshold\": 2500}, \"currencies\": {\"JPY\": {\"amountThreshold\": 150000}}}");
+
+        // Act
+        boolean applied = reloader.reload();
+        boolean unchanged = reloader.reload();
+        Files.writeString(file, "{\"defaults\": ");
+        boolean malformed = reloader.reload();
+        boolean malformedAgain = reloader.reload();
+
+        // Assert
+        assertTrue(applied);
+        assertFalse(unchanged);
+        assertFalse(malformed);
+        assertFalse(malformedAgain);
+        ArgumentCaptor<ThresholdConfig> config = ArgumentCaptor.forClass(ThresholdConfig.class);
+        verify(fraudDetectionService, times(1)).updateThresholds(config.capture());
+        assertEquals(new BigDecimal("2500"), config.getValue().defaults().amountThreshold());
+        assertEquals(new BigDecimal("150000"), config.getValue().currencies().get("JPY").amountThreshold());
+        assertTrue(config.getValue().merchants().isEmpty());
+        assertEquals(1.0, registry.get("fraud.thresholds.reloads").tag("result", "applied").counter().count());
+        assertEquals(1.0, registry.get("fraud.thresholds.reloads").tag("result", "rejected").counter().count());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.ownership.AccountOwnership;
+import com.example.frauddetection.ownership.StaticMembership;
+import com.example.frauddetection.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchSQSConsumerTest {
+
+    @Mock
+    private FraudDetectionService fraudDetectionService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AlertingService alertingService;
+
+    private TransactionBatchSQSConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new TransactionBatchSQSConsumer(fraudDetectionService, new DirectTransactionWriter(transactionRepository), alertingService,
+            new AccountPartitionedExecutor(Runnable::run, 4),
+            new AccountOwnership("local", new StaticMembership(List.of()), null, fraudDetectionService, new SimpleMeterRegistry(), 1, 0),
+            new SimpleMeterRegistry());
+    }
+
+    @Test
+    void whenReceivingBatch_thenSaveAllOnceAndAlertAfterPersisting() {
+        // Arrange
+        Transaction normal = transaction("ACC1", "100");
+        Transaction suspicious = transaction("ACC2", "2000");
+        List<Transaction> batch = Arrays.asList(normal, suspicious);
+        List<Message<Transaction>> messages = List.of(MessageBuilder.withPayload(normal).build(), MessageBuilder.withPayload(suspicious).build());
+
+        when(fraudDetectionService.evaluateTransaction(normal)).thenReturn(FraudVerdict.approved());
+        when(fraudDetectionService.evaluateTransaction(suspicious)).thenReturn(FraudVerdict.flagged(FraudReason.HIGH_VALUE, 2.0));
+
+        // Act
+        consumer.receiveBatch(messages);
+
+        // Assert
+        assertEquals(Transaction.TransactionStatus.APPROVED, normal.getStatus());
+        assertEquals(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS, suspicious.getStatus());
+        InOrder order = inOrder(transactionRepository, alertingService);
+        order.verify(transactionRepository, times(1)).saveAll(batch);
+        order.verify(alertingService).sendAlert(eq(suspicious), eq("HIGH_VALUE"));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(alertingService, never()).sendAlert(eq(normal), anyString());
+    }
+
+    @Test
+    void whenBatchIsRedeliveredAfterItsWriteFailed_thenDecidedTransactionsKeepTheirVerdicts() {
+        // Arrange
+        Transaction normal = transaction("ACC1", "100");
+        Transaction suspicious = transaction("ACC2", "2000");
+        List<Transaction> batch = Arrays.asList(normal, suspicious);
+        List<Message<Transaction>> messages = List.of(MessageBuilder.withPayload(normal).build(), MessageBuilder.withPayload(suspicious).build());
+        when(fraudDetectionService.evaluateTransaction(normal)).thenReturn(FraudVerdict.approved());
+        when(fraudDetectionService.evaluateTransaction(suspicious)).thenReturn(FraudVerdict.flagged(FraudReason.HIGH_VALUE, 2.0));
+        when(transactionRepository.saveAll(batch)).thenThrow(new IllegalStateException("database unavailable")).thenReturn(batch);
+        assertThrows(IllegalStateException.class, () -> consumer.receiveBatch(messages));
+
+        // Act
+        consumer.receiveBatch(messages);
+
+        // Assert
+        verify(fraudDetectionService, times(1)).evaluateTransaction(normal);
+        verify(fraudDetectionService, times(1)).evaluateTransaction(suspicious);
+        verify(transactionRepository, times(2)).saveAll(batch);
+        verify(alertingService, times(1)).sendAlert(eq(suspicious), eq("HIGH_VALUE"));
+    }
+
+    private Transaction transaction(String accountId, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setTimestamp(new Date());
+        transaction.setLocation("TestLocation");
+        transaction.setCurrency("USD");
+        return transaction;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.repository.TransactionRepository;
+import com.example.frauddetection.rules.RapidSuccessionRule;
+import com.example.frauddetection.rules.RuleThresholds;
+import com.example.frauddetection.rules.TransactionCodes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionKafkaConsumerTest {
+
+    @Mock
+    private FraudDetectionService fraudDetectionService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AlertingService alertingService;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private TransactionKafkaConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new TransactionKafkaConsumer(fraudDetectionService, new DirectTransactionWriter(transactionRepository), alertingService,
+            new AccountPartitionedExecutor(Runnable::run, 4), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void whenReceivingBatch_thenAcknowledgeAfterPersistingAndSkipUndecodableRecords() {
+        // Arrange
+        Transaction normal = transaction("ACC1", "100");
+        Transaction suspicious = transaction("ACC2", "2000");
+        List<ConsumerRecord<String, Transaction>> records = List.of(
+            record(0, "ACC1", normal), record(1, "ACC3", null), record(2, "ACC2", suspicious));
+
+        when(fraudDetectionService.evaluateTransaction(normal)).thenReturn(FraudVerdict.approved());
+        when(fraudDetectionService.evaluateTransaction(suspicious)).thenReturn(FraudVerdict.flagged(FraudReason.HIGH_VALUE, 2.0));
+
+        // Act
+        consumer.receiveBatch(records, acknowledgment);
+
+        // Assert
+        assertEquals(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS, suspicious.getStatus());
+        InOrder order = inOrder(transactionRepository, alertingService, acknowledgment);
+        order.verify(transactionRepository).saveAll(List.of(normal, suspicious));
+        order.verify(alertingService).sendAlert(eq(suspicious), eq("HIGH_VALUE"));
+        order.verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void whenPersistingFails_thenDoNotAcknowledge() {
+        // Arrange
+        Transaction transaction = transaction("ACC1", "100");
+        when(fraudDetectionService.evaluateTransaction(transaction)).thenReturn(FraudVerdict.approved());
+        doThrow(new IllegalStateException("database down")).when(transactionRepository).saveAll(anyList());
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> consumer.receiveBatch(List.of(record(0, "ACC1", transaction)), acknowledgment));
+        verify(acknowledgment, never()).acknowledge();
+        verify(alertingService, never()).sendAlert(any(Transaction.class), any());
+    }
+
+    @Test
+    void whenBatchIsRedeliveredAfterPersistingFails_thenWindowCountsAreUnchanged() {
+        // Arrange: a real service, so redelivered transactions would show up in the account's window
+        FraudDetectionService service = new FraudDetectionService(List.of(new RapidSuccessionRule()), new AccountProfileStore(4096),
+            new TransactionCodes(), new RuleThresholds(new BigDecimal("1000"), 3, new BigDecimal("500")), new SimpleMeterRegistry());
+        List<List<Transaction>> written = new ArrayList<>();
+        TransactionWriter failingOnce = new TransactionWriter() {
+            @Override
+            public void write(Transaction transaction) {
+                writeAll(List.of(transaction));
+            }
+
+            @Override
+            public void writeAll(List<Transaction> transactions) {
+                written.add(transactions);
+                if (written.size() == 1) {
+                    throw new IllegalStateException("database down");
+                }
+            }
+        };
+        TransactionKafkaConsumer realConsumer = new TransactionKafkaConsumer(service, failingOnce, alertingService,
+            new AccountPartitionedExecutor(Runnable::run, 4), new SimpleMeterRegistry());
+        assertThrows(IllegalStateException.class, () -> realConsumer.receiveBatch(
+            List.of(record(0, "ACC1", transaction("ACC1", "100")), record(1, "ACC1", transaction("ACC1", "100"))), acknowledgment));
+
+        // Act: redelivered from the first record, together with one new record
+        Transaction next = transaction("ACC1", "100");
+        realConsumer.receiveBatch(List.of(record(0, "ACC1", transaction("ACC1", "100")), record(1, "ACC1", transaction("ACC1", "100")),
+            record(2, "ACC1", next)), acknowledgment);
+
+        // Assert: two earlier transactions in the window, not four, so the third is not rapid succession
+        assertEquals(2, written.size());
+        assertEquals(3, written.get(1).size());
+        assertEquals(Transaction.TransactionStatus.APPROVED, next.getStatus());
+        assertEquals(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS, service.analyzeTransaction(transaction("ACC1", "100")));
+        verify(acknowledgment).acknowledge();
+    }
+
+    private ConsumerRecord<String, Transaction> record(long offset, String key, Transaction value) {
+        return new ConsumerRecord<>("transactions", 0, offset, key, value);
+    }
+
+    private Transaction transaction(String accountId, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setTimestamp(new Date());
+        transaction.setLocation("TestLocation");
+        transaction.setCurrency("USD");
+        return transaction;
+    }
+}
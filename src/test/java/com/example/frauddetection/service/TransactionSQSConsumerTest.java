@@ -0,0 +1,148 @@
+package com.example.frauddetection.service;
+
+import com.example.frauddetection.model.FraudReason;
+import com.example.frauddetection.model.FraudVerdict;
+import com.example.frauddetection.model.Transaction;
+import com.example.frauddetection.ownership.AccountOwnership;
+import com.example.frauddetection.ownership.ForwardedTransaction;
+import com.example.frauddetection.ownership.MemberUnreachableException;
+import com.example.frauddetection.ownership.OwnershipTransport;
+import com.example.frauddetection.ownership.StaticMembership;
+import com.example.frauddetection.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionSQSConsumerTest {
+
+    @Mock
+    private FraudDetectionService fraudDetectionService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AlertingService alertingService;
+
+    private TransactionSQSConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new TransactionSQSConsumer(fraudDetectionService, new DirectTransactionWriter(transactionRepository), alertingService,
+            new AccountPartitionedExecutor(Runnable::run, 4),
+            new AccountOwnership("local", new StaticMembership(List.of()), null, fraudDetectionService, new SimpleMeterRegistry(), 1, 0),
+            new SimpleMeterRegistry());
+    }
+
+    @Test
+    void whenMessageIsRedeliveredAfterItsWriteFailed_thenItsVerdictIsReused() {
+        // Arrange
+        Transaction suspicious = transaction("ACC1", "2000");
+        Message<Transaction> message = MessageBuilder.withPayload(suspicious).build();
+        when(fraudDetectionService.evaluateTransaction(suspicious)).thenReturn(FraudVerdict.flagged(FraudReason.HIGH_VALUE, 2.0));
+        when(transactionRepository.save(suspicious)).thenThrow(new IllegalStateException("database unavailable")).thenReturn(suspicious);
+        assertThrows(CompletionException.class, () -> consumer.receiveMessage(message).join());
+
+        // Act
+        consumer.receiveMessage(message).join();
+
+        // Assert
+        verify(fraudDetectionService, times(1)).evaluateTransaction(suspicious);
+        verify(transactionRepository, times(2)).save(suspicious);
+        verify(alertingService, times(1)).sendAlert(eq(suspicious), eq("HIGH_VALUE"));
+        assertEquals(Transaction.TransactionStatus.FLAGGED_SUSPICIOUS, suspicious.getStatus());
+    }
+
+    @Test
+    void whenForwardFailsAfterReachingTheOwner_thenMessageFailsWithoutBeingDecidedHere() {
+        // Arrange
+        AccountOwnership ownership = ownershipWithRemote(new IllegalStateException("Member http://remote responded with 503"));
+        TransactionSQSConsumer forwarding = consumer(ownership);
+        Transaction transaction = transaction(accountOwnedByRemote(ownership), "100");
+
+        // Act
+        CompletionException failure = assertThrows(CompletionException.class,
+            () -> forwarding.receiveMessage(MessageBuilder.withPayload(transaction).build()).join());
+
+        // Assert
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        verify(fraudDetectionService, never()).evaluateTransaction(any(Transaction.class));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void whenOwnerCannotBeReached_thenMessageIsDecidedHere() {
+        // Arrange
+        AccountOwnership ownership = ownershipWithRemote(new MemberUnreachableException("Could not connect to member http://remote", null));
+        TransactionSQSConsumer forwarding = consumer(ownership);
+        Transaction transaction = transaction(accountOwnedByRemote(ownership), "100");
+        when(fraudDetectionService.evaluateTransaction(transaction)).thenReturn(FraudVerdict.approved());
+
+        // Act
+        forwarding.receiveMessage(MessageBuilder.withPayload(transaction).build()).join();
+
+        // Assert
+        verify(transactionRepository).save(transaction);
+        verify(fraudDetectionService).removeProfile(transaction.getAccountId());
+    }
+
+    private TransactionSQSConsumer consumer(AccountOwnership ownership) {
+        return new TransactionSQSConsumer(fraudDetectionService, new DirectTransactionWriter(transactionRepository), alertingService,
+            new AccountPartitionedExecutor(Runnable::run, 4), ownership, new SimpleMeterRegistry());
+    }
+
+    private AccountOwnership ownershipWithRemote(Throwable forwardFailure) {
+        OwnershipTransport transport = new OwnershipTransport() {
+            @Override
+            public CompletableFuture<Void> forward(String member, List<ForwardedTransaction> transactions) {
+                return CompletableFuture.failedFuture(forwardFailure);
+            }
+
+            @Override
+            public void handoff(String member, ProfileWriter profiles) {
+            }
+        };
+        AccountOwnership ownership = new AccountOwnership("http://local", new StaticMembership(List.of("http://local", "http://remote")),
+            transport, fraudDetectionService, new SimpleMeterRegistry(), 64, 0);
+        ownership.refresh();
+        return ownership;
+    }
+
+    private static String accountOwnedByRemote(AccountOwnership ownership) {
+        for (int i = 0; ; i++) {
+            if (ownership.ownerOf("ACC" + i) != null) {
+                return "ACC" + i;
+            }
+        }
+    }
+
+    private Transaction transaction(String accountId, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAccountId(accountId);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setTimestamp(new Date());
+        transaction.setLocation("TestLocation");
+        transaction.setCurrency("USD");
+        return transaction;
+    }
+}